@@ -0,0 +1,322 @@
+package com.example.appgraph;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Class for the binary graph file format, opened by memory-mapping the file (pages are loaded lazily on access).
+ * Layout (little-endian):
+ * header of HEADER_SIZE bytes: magic "GRPH", version, rows, columns, weightLower, weightUpper,
+ * CRC32C checksum of both sections;
+ * weight section: (rows * columns * 2) doubles, RIGHT and LOWER weight of each vertex (0.0 if no edge);
+ * presence section: bitset of 8-byte words, bit (vertex * 2 + edge) set if the edge is present.
+ */
+public class BinaryGraphFile {
+    /**
+     * Magic number identifying the format ("GRPH" read as a little-endian int).
+     */
+    public static final int MAGIC = 0x48505247;
+
+    /**
+     * Version of the format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 64;
+
+    /**
+     * Extension of binary graph files.
+     */
+    public static final String EXTENSION = ".bin";
+
+    /**
+     * Size of the buffer used for writing and verifying files.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * File containing the graph.
+     */
+    private final File file;
+
+    /**
+     * Number of rows in the graph.
+     */
+    private final int rows;
+
+    /**
+     * Number of columns in the graph.
+     */
+    private final int columns;
+
+    /**
+     * Lower end of the weight range.
+     */
+    private final double weightLower;
+
+    /**
+     * Upper end of the weight range.
+     */
+    private final double weightUpper;
+
+    /**
+     * Checksum of the weight and presence sections saved in the header.
+     */
+    private final long checksum;
+
+    /**
+     * Opens a binary graph file and reads its header.
+     * @param file binary graph file
+     * @throws IOException in case of an incorrect file format
+     */
+    public BinaryGraphFile(File file) throws IOException {
+        this.file = file;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) != -1) {
+                // keep reading until the header is complete
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException("Incorrect file format.");
+            }
+            if (header.getInt(4) != VERSION) {
+                throw new IOException("Unsupported binary graph version " + header.getInt(4) + ".");
+            }
+            rows = header.getInt(8);
+            columns = header.getInt(12);
+            weightLower = header.getDouble(16);
+            weightUpper = header.getDouble(24);
+            checksum = header.getLong(32);
+            if (!Graph.isValidSize(rows, columns)) {
+                throw new IOException("Graph dimensions out of range.");
+            }
+            if (channel.size() != getFileSize(rows * columns)) {
+                throw new IOException("Incorrect file size.");
+            }
+        }
+    }
+
+    /**
+     * Calculates the size of a binary file of a graph.
+     * @param size number of vertices in the graph
+     * @return size of the file in bytes
+     */
+    private static long getFileSize(int size) {
+        return HEADER_SIZE + (BufferEdgeStorage.getWeightCount(size) + BufferEdgeStorage.getPresenceWordCount(size)) * 8;
+    }
+
+    /**
+     * Checks if a file starts with the binary graph magic number.
+     * @param file checked file
+     * @return true or false
+     * @throws IOException in case of a reading error
+     */
+    public static boolean isBinary(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (magic.hasRemaining() && channel.read(magic) != -1) {
+                // keep reading until the magic number is complete
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Gets the number of rows in the graph.
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns in the graph.
+     * @return number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the lower end of the weight range.
+     * @return lower end of weight range
+     */
+    public double getWeightLower() {
+        return weightLower;
+    }
+
+    /**
+     * Gets the upper end of the weight range.
+     * @return upper end of weight range
+     */
+    public double getWeightUpper() {
+        return weightUpper;
+    }
+
+    /**
+     * Maps the weight and presence sections of the file into an edge storage.
+     * The mapping is read-only, so read-only files can be opened too: changes to the graph (e.g. splitting)
+     * go to copies of the changed chunks and aren't written back to the file.
+     * @return edge storage backed by the file
+     * @throws IOException in case of a mapping error
+     */
+    EdgeStorage map() throws IOException {
+        int size = rows * columns;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long weightCount = BufferEdgeStorage.getWeightCount(size);
+            ByteBuffer [] weightChunks = mapChunks(channel, HEADER_SIZE, weightCount,
+                    BufferEdgeStorage.WEIGHT_CHUNK_SHIFT);
+            ByteBuffer [] presenceChunks = mapChunks(channel, HEADER_SIZE + weightCount * 8,
+                    BufferEdgeStorage.getPresenceWordCount(size), BufferEdgeStorage.PRESENCE_CHUNK_SHIFT);
+            return new BufferEdgeStorage(weightChunks, presenceChunks);
+        }
+    }
+
+    /**
+     * Maps a section of 8-byte entries in chunks.
+     * @param channel channel of the file
+     * @param offset offset of the section in the file
+     * @param count number of entries in the section
+     * @param shift log2 of the number of entries in one chunk
+     * @return array of mapped chunks
+     * @throws IOException in case of a mapping error
+     */
+    private static ByteBuffer [] mapChunks(FileChannel channel, long offset, long count, int shift)
+            throws IOException {
+        int chunkCount = (int) ((count + (1L << shift) - 1) >>> shift);
+        ByteBuffer [] chunks = new ByteBuffer [chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long first = (long) i << shift;
+            long entries = Math.min(1L << shift, count - first);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * 8, entries * 8);
+        }
+        return chunks;
+    }
+
+    /**
+     * Checks if the weight and presence sections match the checksum saved in the header (reads the whole file).
+     * @return true or false
+     * @throws IOException in case of a reading error
+     */
+    public boolean verify() throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            channel.position(HEADER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue() == checksum;
+    }
+
+    /**
+     * Writes a graph into a binary file.
+     * @param g graph
+     * @param file binary graph file
+     * @throws IOException in case of a writing error
+     */
+    public static void write(Graph g, File file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.position(HEADER_SIZE);
+
+            // weight section
+            for (int i = 0; i < g.getGraphSize(); i++) {
+                if (buffer.remaining() < 16) {
+                    flush(channel, buffer, crc);
+                }
+                buffer.putDouble(g.hasNeighbour(i, Vertex.RIGHT) ? g.getWeight(i, Vertex.RIGHT) : 0.0);
+                buffer.putDouble(g.hasNeighbour(i, Vertex.LOWER) ? g.getWeight(i, Vertex.LOWER) : 0.0);
+            }
+
+            // presence section
+            long word = 0;
+            for (int i = 0; i < g.getGraphSize(); i++) {
+                long bit = i * 2L;
+                if (g.hasNeighbour(i, Vertex.RIGHT)) {
+                    word |= 1L << bit;
+                }
+                if (g.hasNeighbour(i, Vertex.LOWER)) {
+                    word |= 1L << (bit + 1);
+                }
+                if (((bit + 2) & 63) == 0) {
+                    if (buffer.remaining() < 8) {
+                        flush(channel, buffer, crc);
+                    }
+                    buffer.putLong(word);
+                    word = 0;
+                }
+            }
+            if (((g.getGraphSize() * 2L) & 63) != 0) {
+                if (buffer.remaining() < 8) {
+                    flush(channel, buffer, crc);
+                }
+                buffer.putLong(word);
+            }
+            flush(channel, buffer, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(g.getRows()).putInt(g.getColumns())
+                    .putDouble(g.getWeightLower()).putDouble(g.getWeightUpper()).putLong(crc.getValue());
+            header.clear();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * Writes the buffer contents into the file and updates the checksum.
+     * @param channel channel of the file
+     * @param buffer buffer with the data to be written
+     * @param crc checksum of the written data
+     * @throws IOException in case of a writing error
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32C crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Converts a graph file from the text format to the binary format.
+     * @param text text graph file
+     * @param binary binary graph file
+     * @throws IOException in case of an incorrect file format or a writing error
+     */
+    public static void textToBinary(File text, File binary) throws IOException {
+        Graph g = new Graph();
+        try (FileReader reader = new FileReader(text)) {
+            g.readGraph(reader);
+        }
+        write(g, binary);
+    }
+
+    /**
+     * Converts a graph file from the binary format to the text format.
+     * @param binary binary graph file
+     * @param text text graph file
+     * @throws IOException in case of an incorrect file format or a writing error
+     */
+    public static void binaryToText(File binary, File text) throws IOException {
+        Graph g = new Graph();
+        g.readBinaryGraph(binary);
+        g.writeGraph(new PrintWriter(text, "UTF-8"));
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.appgraph;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue implementing a binary heap (distance as a priority factor for vertices).
+ */
+class BinaryHeapQueue implements VertexQueue {
+    /**
+     * Array implementing a heap, stores vertices' indexes.
+     */
+    private final int [] heap;
+
+    /**
+     * Number of vertices currently on the heap.
+     */
+    private int count;
+
+    /**
+     * Array of distances to each vertex from the start vertex (priority factor).
+     */
+    private final double [] distance;
+
+    /**
+     * Array of each vertex's current index (position) in the heap array.
+     * (-1) if not on the heap.
+     */
+    private final int [] position;
+
+    /**
+     * Builds a priority queue based on the length of the existing distance array.
+     * @param distance existing distance array of (rows * columns) length
+     */
+    BinaryHeapQueue(double [] distance) {
+        this.distance = distance;
+        this.heap = new int [distance.length];
+        this.count = 0;
+        this.position = new int [distance.length];
+        Arrays.fill(this.position, -1);
+    }
+
+    /**
+     * Orders the heap from the bottom up.
+     * Used while adding a new element to the heap or changing an elements' priority.
+     * @param child index of the new (or updated) vertex in the heap
+     */
+    private void heapUp(int child) {
+        int parent, tmp;
+
+        while(child > 0) {
+            parent = (child - 1) / 2;
+
+            if(distance[heap[parent]] <= distance[heap[child]]) {
+                return;
+            }
+
+            tmp = heap[parent];
+            heap[parent] = heap[child];
+            heap[child] = tmp;
+
+            position[heap[parent]] = parent;
+            position[heap[child]] = child;
+
+            child = parent;
+        }
+    }
+
+    /**
+     * Orders the heap from the root down.
+     * Used when removing an element from the heap.
+     */
+    private void heapDown() {
+        int parent = 0, tmp;
+        int child = 1;
+
+        while(child < count) {
+            if (((child + 1) < count) && (distance[heap[child + 1]] < distance[heap[child]])) {
+                child++;
+            }
+            if (distance[heap[parent]] <= distance[heap[child]]) {
+                return;
+            }
+
+            tmp = heap[parent];
+            heap[parent] = heap[child];
+            heap[child] = tmp;
+
+            position[heap[parent]] = parent;
+            position[heap[child]] = child;
+
+            parent = child;
+            child = 2 * parent + 1;
+        }
+    }
+
+    @Override
+    public void push(int vertex, double distance) {
+        this.distance[vertex] = distance;
+        if(position[vertex] == -1) {
+            heap[count] = vertex;
+            position[vertex] = count;
+            count++;
+        }
+        heapUp(position[vertex]);
+    }
+
+    @Override
+    public int pop() {
+        int popped = heap[0];
+        count--;
+        heap[0] = heap[count];
+        position[popped] = -1;
+        position[heap[0]] = 0;
+        heapDown();
+        return popped;
+    }
+
+    @Override
+    public int peek() {
+        return heap[0];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (count == 0);
+    }
+}
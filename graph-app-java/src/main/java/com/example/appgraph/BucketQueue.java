@@ -0,0 +1,180 @@
+package com.example.appgraph;
+
+import java.util.Arrays;
+
+/**
+ * Monotone priority queue of Dial buckets: a circular array of buckets of keys of a fixed width
+ * (vertex lists linked through arrays).
+ * The vertices of the lowest non-empty bucket are moved to a binary heap, so they are removed in exact key order
+ * (ties resolved like in the binary heap queue).
+ * All keys in the queue must lie within span of the last removed key (true for Dijkstry and consistent A* searches
+ * if span covers the largest edge weight plus the largest heuristic change along an edge).
+ */
+class BucketQueue implements VertexQueue {
+    /**
+     * Bucket value of vertices not in the queue.
+     */
+    private static final int NOT_QUEUED = -1;
+
+    /**
+     * Bucket value of vertices in the heap of the current bucket.
+     */
+    private static final int IN_HEAP = -2;
+
+    /**
+     * Array of keys of the vertices (priority factor).
+     */
+    private final double [] key;
+
+    /**
+     * Width of a bucket.
+     */
+    private final double width;
+
+    /**
+     * First vertex of each bucket, (-1) if the bucket is empty.
+     */
+    private final int [] head;
+
+    /**
+     * Next vertex in the bucket of each vertex, (-1) if the last one.
+     */
+    private final int [] next;
+
+    /**
+     * Previous vertex in the bucket of each vertex, (-1) if the first one.
+     */
+    private final int [] previous;
+
+    /**
+     * Bucket of each vertex (index in the head array), NOT_QUEUED or IN_HEAP.
+     */
+    private final int [] bucket;
+
+    /**
+     * Heap of the vertices of the current bucket.
+     */
+    private final BinaryHeapQueue current;
+
+    /**
+     * Number of the current bucket (not wrapped around).
+     */
+    private long currentBucket;
+
+    /**
+     * Number of vertices in the buckets (outside the heap).
+     */
+    private int listed;
+
+    /**
+     * Builds a priority queue based on the length of the existing key array.
+     * @param key existing key array of (rows * columns) length
+     * @param width width of a bucket (positive)
+     * @param span largest possible difference between a key in the queue and the last removed key
+     */
+    BucketQueue(double [] key, double width, double span) {
+        this.key = key;
+        this.width = width;
+        this.head = new int [getBucketCount(width, span)];
+        Arrays.fill(head, -1);
+        this.next = new int [key.length];
+        this.previous = new int [key.length];
+        this.bucket = new int [key.length];
+        Arrays.fill(bucket, NOT_QUEUED);
+        this.current = new BinaryHeapQueue(key);
+    }
+
+    /**
+     * Calculates the number of buckets needed to hold all keys of the queue at once.
+     * @param width width of a bucket
+     * @param span largest possible difference between a key in the queue and the last removed key
+     * @return number of buckets
+     */
+    static int getBucketCount(double width, double span) {
+        return (int) Math.min(Math.ceil(span / width) + 2, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Removes a vertex from its bucket.
+     * @param vertex index of the vertex
+     */
+    private void unlink(int vertex) {
+        if(previous[vertex] != -1) {
+            next[previous[vertex]] = next[vertex];
+        } else {
+            head[bucket[vertex]] = next[vertex];
+        }
+        if(next[vertex] != -1) {
+            previous[next[vertex]] = previous[vertex];
+        }
+        listed--;
+    }
+
+    @Override
+    public void push(int vertex, double key) {
+        long number = (long) (key / width);
+        if(isEmpty()) {
+            currentBucket = number;
+        }
+        if(bucket[vertex] >= 0) {
+            unlink(vertex);
+        }
+        if(number <= currentBucket || bucket[vertex] == IN_HEAP) {
+            bucket[vertex] = IN_HEAP;
+            current.push(vertex, key);
+            return;
+        }
+        if(number - currentBucket >= head.length) {
+            throw new IllegalArgumentException("Key out of the bucket range.");
+        }
+        this.key[vertex] = key;
+        int b = (int) (number % head.length);
+        bucket[vertex] = b;
+        previous[vertex] = -1;
+        next[vertex] = head[b];
+        if(head[b] != -1) {
+            previous[head[b]] = vertex;
+        }
+        head[b] = vertex;
+        listed++;
+    }
+
+    /**
+     * Moves the vertices of the lowest non-empty bucket to the heap if the heap is empty.
+     */
+    private void advance() {
+        if(!current.isEmpty()) {
+            return;
+        }
+        int b = (int) (currentBucket % head.length);
+        while(head[b] == -1) {
+            currentBucket++;
+            b = (b + 1 == head.length) ? 0 : b + 1;
+        }
+        for(int vertex = head[b]; vertex != -1; vertex = next[vertex]) {
+            bucket[vertex] = IN_HEAP;
+            current.push(vertex, key[vertex]);
+            listed--;
+        }
+        head[b] = -1;
+    }
+
+    @Override
+    public int pop() {
+        advance();
+        int popped = current.pop();
+        bucket[popped] = NOT_QUEUED;
+        return popped;
+    }
+
+    @Override
+    public int peek() {
+        advance();
+        return current.peek();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return listed == 0 && current.isEmpty();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.appgraph;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Edge storage kept outside the Java heap in chunks of byte buffers (used for large graphs).
+ * Weights are stored as 8-byte doubles, (vertex * 2 + edge) for each entry,
+ * edge presence as a bitset of 8-byte words, bit (vertex * 2 + edge) set if the edge is present.
+ * Both sections are little-endian, so the same layout can be mapped straight from a file.
+ * Chunks mapped read-only from a file are copied into direct buffers when they are first changed.
+ */
+public class BufferEdgeStorage implements EdgeStorage {
+    /**
+     * Handle for atomic updates of the words of the presence bitset.
+     */
+    private static final VarHandle PRESENT = MethodHandles.byteBufferViewVarHandle(long [].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Handle for publishing the chunks copied from read-only mappings.
+     */
+    private static final VarHandle CHUNK = MethodHandles.arrayElementVarHandle(ByteBuffer [].class);
+
+    /**
+     * log2 of the number of weights in one chunk (2^24 weights = 128 MiB per chunk).
+     */
+    static final int WEIGHT_CHUNK_SHIFT = 24;
+
+    /**
+     * log2 of the number of presence words in one chunk (2^24 words = 128 MiB per chunk).
+     */
+    static final int PRESENCE_CHUNK_SHIFT = 24;
+
+    /**
+     * Chunks containing edge weights.
+     */
+    private final ByteBuffer [] weightChunks;
+
+    /**
+     * Chunks containing the presence bitset.
+     */
+    private final ByteBuffer [] presenceChunks;
+
+    /**
+     * Creates a storage on top of existing chunks.
+     * Read-only chunks (e.g. mapped from a file) are copied when an edge in them is first changed.
+     * @param weightChunks chunks containing edge weights (each but the last holding 2^WEIGHT_CHUNK_SHIFT weights)
+     * @param presenceChunks chunks containing the presence bitset (each but the last holding 2^PRESENCE_CHUNK_SHIFT words)
+     */
+    BufferEdgeStorage(ByteBuffer [] weightChunks, ByteBuffer [] presenceChunks) {
+        this.weightChunks = weightChunks;
+        this.presenceChunks = presenceChunks;
+        for(ByteBuffer chunk : weightChunks) {
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        for(ByteBuffer chunk : presenceChunks) {
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Creates a storage with no edges in newly allocated direct buffers.
+     * @param size number of vertices in the graph
+     */
+    public BufferEdgeStorage(int size) {
+        this(allocateChunks(getWeightCount(size), WEIGHT_CHUNK_SHIFT),
+                allocateChunks(getPresenceWordCount(size), PRESENCE_CHUNK_SHIFT));
+    }
+
+    /**
+     * Calculates the number of weights stored for a graph.
+     * @param size number of vertices in the graph
+     * @return number of weights
+     */
+    static long getWeightCount(int size) {
+        return size * 2L;
+    }
+
+    /**
+     * Calculates the number of 8-byte words of the presence bitset for a graph.
+     * @param size number of vertices in the graph
+     * @return number of words
+     */
+    static long getPresenceWordCount(int size) {
+        return (size * 2L + 63) >>> 6;
+    }
+
+    /**
+     * Allocates zeroed direct chunks for a number of 8-byte entries.
+     * @param count number of entries
+     * @param shift log2 of the number of entries in one chunk
+     * @return array of chunks
+     */
+    private static ByteBuffer [] allocateChunks(long count, int shift) {
+        int chunkCount = (int) ((count + (1L << shift) - 1) >>> shift);
+        ByteBuffer [] chunks = new ByteBuffer [Math.max(chunkCount, 1)];
+        for(int i = 0; i < chunks.length; i++) {
+            long entries = Math.min(1L << shift, count - ((long) i << shift));
+            chunks[i] = ByteBuffer.allocateDirect((int) (Math.max(entries, 0) * 8));
+        }
+        return chunks;
+    }
+
+    @Override
+    public boolean hasEdge(int vertex, int edge) {
+        long bit = vertex * 2L + edge;
+        long word = bit >>> 6;
+        ByteBuffer chunk = presenceChunks[(int) (word >>> PRESENCE_CHUNK_SHIFT)];
+        int offset = (int) (word & ((1L << PRESENCE_CHUNK_SHIFT) - 1)) << 3;
+        return (chunk.getLong(offset) & (1L << bit)) != 0;
+    }
+
+    @Override
+    public double getWeight(int vertex, int edge) {
+        long index = vertex * 2L + edge;
+        ByteBuffer chunk = weightChunks[(int) (index >>> WEIGHT_CHUNK_SHIFT)];
+        return chunk.getDouble((int) (index & ((1L << WEIGHT_CHUNK_SHIFT) - 1)) << 3);
+    }
+
+    @Override
+    public void setEdge(int vertex, int edge, double weight) {
+        long index = vertex * 2L + edge;
+        ByteBuffer chunk = getWritable(weightChunks, (int) (index >>> WEIGHT_CHUNK_SHIFT));
+        chunk.putDouble((int) (index & ((1L << WEIGHT_CHUNK_SHIFT) - 1)) << 3, weight);
+        setPresent(index, true);
+    }
+
+    @Override
+    public void removeEdge(int vertex, int edge) {
+        setPresent(vertex * 2L + edge, false);
+    }
+
+    /**
+     * Sets or clears a bit of the presence bitset.
+     * @param bit index of the bit (vertex * 2 + edge)
+     * @param present true to set the bit, false to clear it
+     */
+    private void setPresent(long bit, boolean present) {
+        long word = bit >>> 6;
+        ByteBuffer chunk = getWritable(presenceChunks, (int) (word >>> PRESENCE_CHUNK_SHIFT));
+        int offset = (int) (word & ((1L << PRESENCE_CHUNK_SHIFT) - 1)) << 3;
+        if (present) {
+            PRESENT.getAndBitwiseOr(chunk, offset, 1L << bit);
+        } else {
+            PRESENT.getAndBitwiseAnd(chunk, offset, ~(1L << bit));
+        }
+    }
+
+    /**
+     * Gets a chunk for writing, replacing a read-only chunk with a copy in a direct buffer first.
+     * @param chunks weight or presence chunks
+     * @param index index of the chunk
+     * @return writable chunk
+     */
+    private static ByteBuffer getWritable(ByteBuffer [] chunks, int index) {
+        ByteBuffer chunk = (ByteBuffer) CHUNK.getAcquire(chunks, index);
+        if(!chunk.isReadOnly()) {
+            return chunk;
+        }
+        synchronized(chunks) {
+            chunk = chunks[index];
+            if(chunk.isReadOnly()) {
+                ByteBuffer copy = ByteBuffer.allocateDirect(chunk.capacity()).order(ByteOrder.LITTLE_ENDIAN);
+                copy.put(0, chunk, 0, chunk.capacity());
+                CHUNK.setRelease(chunks, index, copy);
+                chunk = copy;
+            }
+            return chunk;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.appgraph;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Connected components of a graph, labelled by a union-find pass over the edges.
+ * Components are numbered from 0 in the order of their lowest vertex, each has its size and bounding box.
+ * Large graphs are labelled in parallel: union-find inside bands of vertices, a merge over the edges between bands,
+ * then parallel passes numbering the roots, so the labels are the same as the sequential ones.
+ * Labels are computed for 1 version of the graph (Graph.getComponents() recomputes them after a change).
+ */
+public class Components {
+    /**
+     * Number of vertices from which components are labelled in parallel.
+     */
+    private static final int PARALLEL_SIZE = 1 << 20;
+
+    /**
+     * Smallest number of vertices labelled by 1 task.
+     */
+    private static final int MIN_BAND_SIZE = 1 << 16;
+
+    /**
+     * Handle for atomic updates of the sizes and bounding boxes.
+     */
+    private static final VarHandle INT = MethodHandles.arrayElementVarHandle(int [].class);
+
+    /**
+     * Version of the graph the labels were computed for.
+     */
+    private final long graphVersion;
+
+    /**
+     * Component of each vertex.
+     */
+    private final int [] label;
+
+    /**
+     * Number of vertices of each component.
+     */
+    private final int [] size;
+
+    /**
+     * Bounding box of each component: (first row, first column, last row, last column) at index (4 * component).
+     */
+    private final int [] box;
+
+    /**
+     * Creates labels from computed arrays.
+     * @param graphVersion version of the graph
+     * @param label component of each vertex
+     * @param size number of vertices of each component
+     * @param box bounding box of each component
+     */
+    private Components(long graphVersion, int [] label, int [] size, int [] box) {
+        this.graphVersion = graphVersion;
+        this.label = label;
+        this.size = size;
+        this.box = box;
+    }
+
+    /**
+     * Labels the components of a graph, in parallel on the common pool if the graph is large
+     * and the pool has more than 1 thread.
+     * @param g graph
+     * @return components of the graph
+     */
+    public static Components compute(Graph g) {
+        if(g.getGraphSize() >= PARALLEL_SIZE && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return compute(g, ForkJoinPool.commonPool());
+        }
+        long version = g.getVersion();
+        int vertices = g.getGraphSize();
+        // union-find forest where each root is the lowest vertex of its tree
+        int [] parent = new int [vertices];
+        unionRange(g, parent, 0, vertices);
+        int count = relabel(parent);
+        int [] size = new int [count];
+        int [] box = newBoxes(count);
+        collect(parent, g.getColumns(), 0, vertices, size, box);
+        return new Components(version, parent, size, box);
+    }
+
+    /**
+     * Labels the components of a graph in parallel.
+     * @param g graph
+     * @param pool pool running the tasks
+     * @return components of the graph
+     */
+    static Components compute(Graph g, ForkJoinPool pool) {
+        long version = g.getVersion();
+        int vertices = g.getGraphSize();
+        int columns = g.getColumns();
+        int bands = (int) Math.max(1, Math.min(4L * pool.getParallelism(), vertices / MIN_BAND_SIZE));
+        int [] first = new int [bands + 1];
+        for(int band = 0; band <= bands; band++) {
+            first[band] = (int) ((long) vertices * band / bands);
+        }
+        int [] parent = new int [vertices];
+
+        // union-find inside each band, the trees don't leave their bands
+        forEachBand(pool, bands, band -> unionRange(g, parent, first[band], first[band + 1]));
+        // edges leaving a band start at its last vertex (right) or in its last row (lower)
+        for(int band = 0; band < bands - 1; band++) {
+            int end = first[band + 1];
+            if(g.hasNeighbour(end - 1, Vertex.RIGHT)) {
+                union(parent, end - 1, end);
+            }
+            for(int vertex = Math.max(first[band], end - columns); vertex < end; vertex++) {
+                if(g.hasNeighbour(vertex, Vertex.LOWER)) {
+                    union(parent, vertex, vertex + columns);
+                }
+            }
+        }
+
+        // link every vertex to its root and count the roots of each band
+        // (other bands may see a parent before or after the change, both lead to the same root)
+        int [] roots = new int [bands + 1];
+        forEachBand(pool, bands, band -> {
+            int count = 0;
+            for(int vertex = first[band]; vertex < first[band + 1]; vertex++) {
+                int root = vertex;
+                while(parent[root] != root) {
+                    root = parent[root];
+                }
+                parent[vertex] = root;
+                if(root == vertex) {
+                    count++;
+                }
+            }
+            roots[band + 1] = count;
+        });
+        for(int band = 0; band < bands; band++) {
+            roots[band + 1] += roots[band];
+        }
+        // number the roots in ascending order, kept as (-label - 1) to tell them from the parents
+        forEachBand(pool, bands, band -> {
+            int next = roots[band];
+            for(int vertex = first[band]; vertex < first[band + 1]; vertex++) {
+                if(parent[vertex] == vertex) {
+                    parent[vertex] = -(next++) - 1;
+                }
+            }
+        });
+        forEachBand(pool, bands, band -> {
+            for(int vertex = first[band]; vertex < first[band + 1]; vertex++) {
+                if(parent[vertex] >= 0) {
+                    parent[vertex] = -parent[parent[vertex]] - 1;
+                }
+            }
+        });
+        int count = roots[bands];
+        int [] size = new int [count];
+        int [] box = newBoxes(count);
+        forEachBand(pool, bands, band -> {
+            for(int vertex = first[band]; vertex < first[band + 1]; vertex++) {
+                if(parent[vertex] < 0) {
+                    parent[vertex] = -parent[vertex] - 1;
+                }
+            }
+            collect(parent, columns, first[band], first[band + 1], size, box);
+        });
+        return new Components(version, parent, size, box);
+    }
+
+    /**
+     * Runs a task for each band on a pool and waits for all of them.
+     * @param pool pool running the tasks
+     * @param bands number of bands
+     * @param task task for 1 band, given its number
+     */
+    private static void forEachBand(ForkJoinPool pool, int bands, IntConsumer task) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for(int band = 0; band < bands; band++) {
+            int number = band;
+            tasks.add(pool.submit(() -> task.accept(number)));
+        }
+        for(ForkJoinTask<?> t : tasks) {
+            t.join();
+        }
+    }
+
+    /**
+     * Builds the union-find forest of the edges between the vertices of a range.
+     * @param g graph
+     * @param parent union-find forest
+     * @param from 1st vertex of the range
+     * @param to vertex after the last one of the range
+     */
+    private static void unionRange(Graph g, int [] parent, int from, int to) {
+        int columns = g.getColumns();
+        for(int vertex = from; vertex < to; vertex++) {
+            parent[vertex] = vertex;
+        }
+        for(int vertex = from; vertex < to; vertex++) {
+            if(vertex + 1 < to && g.hasNeighbour(vertex, Vertex.RIGHT)) {
+                union(parent, vertex, vertex + 1);
+            }
+            if(vertex + columns < to && g.hasNeighbour(vertex, Vertex.LOWER)) {
+                union(parent, vertex, vertex + columns);
+            }
+        }
+    }
+
+    /**
+     * Creates empty bounding boxes.
+     * @param count number of components
+     * @return array of bounding boxes
+     */
+    private static int [] newBoxes(int count) {
+        int [] box = new int [4 * count];
+        for(int i = 0; i < count; i++) {
+            box[4 * i] = Integer.MAX_VALUE;
+            box[4 * i + 1] = Integer.MAX_VALUE;
+            box[4 * i + 2] = -1;
+            box[4 * i + 3] = -1;
+        }
+        return box;
+    }
+
+    /**
+     * Adds the vertices of a range to the sizes and bounding boxes of their components.
+     * A run of vertices of 1 component in a row is added at once, atomically, since ranges may be collected in parallel.
+     * @param label component of each vertex
+     * @param columns number of columns of the graph
+     * @param from 1st vertex of the range
+     * @param to vertex after the last one of the range
+     * @param size number of vertices of each component
+     * @param box bounding box of each component
+     */
+    private static void collect(int [] label, int columns, int from, int to, int [] size, int [] box) {
+        int vertex = from;
+        while(vertex < to) {
+            int component = label[vertex];
+            int row = vertex / columns;
+            int rowEnd = Math.min(to, (row + 1) * columns);
+            int end = vertex + 1;
+            while(end < rowEnd && label[end] == component) {
+                end++;
+            }
+            INT.getAndAdd(size, component, end - vertex);
+            updateMin(box, 4 * component, row);
+            updateMin(box, 4 * component + 1, vertex % columns);
+            updateMax(box, 4 * component + 2, row);
+            updateMax(box, 4 * component + 3, (end - 1) % columns);
+            vertex = end;
+        }
+    }
+
+    /**
+     * Atomically lowers an element of an array to a value.
+     * @param array array
+     * @param index index of the element
+     * @param value value the element is lowered to
+     */
+    private static void updateMin(int [] array, int index, int value) {
+        int old = (int) INT.getVolatile(array, index);
+        while(value < old && !INT.compareAndSet(array, index, old, value)) {
+            old = (int) INT.getVolatile(array, index);
+        }
+    }
+
+    /**
+     * Atomically raises an element of an array to a value.
+     * @param array array
+     * @param index index of the element
+     * @param value value the element is raised to
+     */
+    private static void updateMax(int [] array, int index, int value) {
+        int old = (int) INT.getVolatile(array, index);
+        while(value > old && !INT.compareAndSet(array, index, old, value)) {
+            old = (int) INT.getVolatile(array, index);
+        }
+    }
+
+    /**
+     * Finds the root of the tree of a vertex, halving the path on the way.
+     * @param parent union-find forest
+     * @param vertex index of the vertex
+     * @return root of the tree
+     */
+    static int find(int [] parent, int vertex) {
+        while(parent[vertex] != vertex) {
+            parent[vertex] = parent[parent[vertex]];
+            vertex = parent[vertex];
+        }
+        return vertex;
+    }
+
+    /**
+     * Joins the trees of 2 vertices, the higher root is linked to the lower one.
+     * @param parent union-find forest
+     * @param a index of the 1st vertex
+     * @param b index of the 2nd vertex
+     */
+    static void union(int [] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if(rootA < rootB) {
+            parent[rootB] = rootA;
+        } else if(rootB < rootA) {
+            parent[rootA] = rootB;
+        }
+    }
+
+    /**
+     * Replaces the parents of a union-find forest (each root the lowest vertex of its tree) with component labels
+     * numbered in the order of the roots. Parents are lower than their children, so in ascending order
+     * the parent of a vertex already holds the label of the root.
+     * @param parent union-find forest, overwritten with the labels
+     * @return number of components
+     */
+    static int relabel(int [] parent) {
+        int count = 0;
+        for(int vertex = 0; vertex < parent.length; vertex++) {
+            int p = parent[vertex];
+            parent[vertex] = (p == vertex) ? count++ : parent[p];
+        }
+        return count;
+    }
+
+    /**
+     * Checks if the labels can be used for a graph in its current state.
+     * @param g graph
+     * @return true if the graph hasn't changed since the labels were computed
+     */
+    public boolean isCurrent(Graph g) {
+        return g.getVersion() == graphVersion && g.getGraphSize() == label.length;
+    }
+
+    /**
+     * Gets the component of a vertex.
+     * @param vertex index of the vertex
+     * @return number of the component
+     */
+    public int getLabel(int vertex) {
+        return label[vertex];
+    }
+
+    /**
+     * Checks if 2 vertices lie in the same component (a path between them exists).
+     * @param a index of the 1st vertex
+     * @param b index of the 2nd vertex
+     * @return true or false
+     */
+    public boolean sameComponent(int a, int b) {
+        return label[a] == label[b];
+    }
+
+    /**
+     * Gets the number of components.
+     * @return number of components
+     */
+    public int getCount() {
+        return size.length;
+    }
+
+    /**
+     * Checks if the graph is connected.
+     * @return true if the graph has 1 component
+     */
+    public boolean isConnected() {
+        return size.length == 1;
+    }
+
+    /**
+     * Gets the number of vertices of a component.
+     * @param component number of the component
+     * @return size of the component
+     */
+    public int getSize(int component) {
+        return size[component];
+    }
+
+    /**
+     * Gets the numbers of vertices of all components.
+     * @return copy of the array of sizes
+     */
+    public int [] getSizes() {
+        return size.clone();
+    }
+
+    /**
+     * Gets the bounding box of a component.
+     * @param component number of the component
+     * @return array of the first row, first column, last row and last column
+     */
+    public int [] getBoundingBox(int component) {
+        return new int [] {box[4 * component], box[4 * component + 1], box[4 * component + 2], box[4 * component + 3]};
+    }
+
+    @Override
+    public String toString() {
+        int largest = 0;
+        for(int s : size) {
+            largest = Math.max(largest, s);
+        }
+        return String.format("Components: %d, largest %d vertices", size.length, largest);
+    }
+}
@@ -1,64 +1,230 @@
 package com.example.appgraph;
 
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.Queue;
 
 /**
  * Class for checking the connectivity of a graph using the BFS algorithm.
+ * Visited vertices are kept in a bitset and the queue in an int array, where the vertices stay in BFS order,
+ * so after a search the queue holds the layers (vertices by the number of hops from the start vertex).
+ * A layer is expanded top-down (the frontier visits its neighbours) or, when the frontier is large compared with
+ * the unvisited vertices, bottom-up (each unvisited vertex looks for a neighbour in the frontier bitset).
+ * The arrays are allocated once, so 1 object runs any number of searches on the graph without garbage.
  */
 public class Connectivity {
     /**
-     * Array containing the colour (state) of each vertex (white, gray or black).
+     * Ratio of the frontier to the unvisited vertices (and the bitset words scanned for them)
+     * above which a layer is expanded bottom-up.
      */
-    private final int [] colour;
+    private static final int ALPHA = 14;
 
     /**
-     * Colour corresponding to the "undiscovered" state of a vertex.
+     * Number of vertices of the graph.
      */
-    private final static int WHITE = 0;
+    private final int size;
 
     /**
-     * Colour corresponding to the "discovered" state of a vertex.
+     * Visited vertices, 1 bit per vertex (the bits past the last vertex are set).
      */
-    private final static int GRAY = 1;
+    private final long [] visited;
 
     /**
-     * Colour corresponding to the "explored" state of a vertex.
+     * Vertices of the layer being expanded bottom-up, cleared after each layer.
      */
-    private final static int BLACK = 2;
+    private final long [] frontier;
 
     /**
-     * Initially marks all the vertices as undiscovered.
+     * Visited vertices in BFS order.
+     */
+    private final int [] queue;
+
+    /**
+     * Number of hops from the start vertex of its search to each visited vertex.
+     */
+    private final int [] hops;
+
+    /**
+     * Index in the queue of the 1st vertex of each layer of the last search (and of the end of the last layer).
+     */
+    private int [] layerStart = new int [64];
+
+    /**
+     * Number of layers of the last search.
+     */
+    private int layers;
+
+    /**
+     * Index in the queue of the start vertex of the last search.
+     */
+    private int searchBegin;
+
+    /**
+     * Number of vertices in the queue.
+     */
+    private int tail;
+
+    /**
+     * Number of layers of the last search expanded bottom-up.
+     */
+    private int bottomUpLayers;
+
+    /**
+     * First bitset word that may contain unvisited vertices.
+     */
+    private int firstWord;
+
+    /**
+     * Last bitset word that may contain unvisited vertices.
+     */
+    private int lastWord;
+
+    /**
+     * Allocates the arrays of the searches.
      * @param g graph the connectivity of which we want to check
      */
     public Connectivity(Graph g) {
-        colour = new int [g.getGraphSize()];
-        Arrays.fill(colour, WHITE);
+        size = g.getGraphSize();
+        visited = new long [(size + 63) >>> 6];
+        frontier = new long [visited.length];
+        queue = new int [size];
+        hops = new int [size];
+    }
+
+    /**
+     * Marks all the vertices as unvisited and empties the queue.
+     */
+    private void clear() {
+        Arrays.fill(visited, 0L);
+        if((size & 63) != 0) {
+            visited[visited.length - 1] = -1L << (size & 63);
+        }
+        firstWord = 0;
+        lastWord = visited.length - 1;
+        tail = 0;
+    }
+
+    /**
+     * Checks if a vertex was visited.
+     * @param vertex index of the vertex
+     * @return true or false
+     */
+    private boolean isVisited(int vertex) {
+        return (visited[vertex >>> 6] & (1L << vertex)) != 0;
+    }
+
+    /**
+     * Marks a vertex as visited and adds it to the queue.
+     * @param vertex index of the vertex
+     * @param hop number of hops from the start vertex
+     */
+    private void visit(int vertex, int hop) {
+        visited[vertex >>> 6] |= 1L << vertex;
+        hops[vertex] = hop;
+        queue[tail++] = vertex;
     }
 
     /**
-     * Performs the BFS algorithm on a given graph, saves the state of each vertex in the colour array.
+     * Performs the BFS algorithm from a vertex not visited yet, adds the reached vertices to the queue
+     * and the starts of the layers to the layer array.
      * @param g graph
      * @param startVertex vertex from which the BFS algorithm starts visiting vertices
+     * @param finishVertex vertex after the layer of which the search stops ((-1) to visit the whole component)
+     * @return number of reached vertices
      */
-    private void bfs(Graph g, int startVertex) {
-        colour[startVertex] = GRAY;
+    private int bfs(Graph g, int startVertex, int finishVertex) {
+        layers = 0;
+        bottomUpLayers = 0;
+        searchBegin = tail;
+        visit(startVertex, 0);
+        int layerBegin = searchBegin;
+        while(layerBegin < tail) {
+            if(layers + 1 >= layerStart.length) {
+                layerStart = Arrays.copyOf(layerStart, 2 * layerStart.length);
+            }
+            layerStart[layers++] = layerBegin;
+            if(finishVertex != -1 && isVisited(finishVertex)) {
+                break;
+            }
+            int layerEnd = tail;
+            long frontierSize = layerEnd - layerBegin;
+            if(frontierSize * ALPHA > (size - tail) + (lastWord - firstWord + 1)) {
+                expandBottomUp(g, layerBegin, layerEnd, layers);
+                bottomUpLayers++;
+            } else {
+                expandTopDown(g, layerBegin, layerEnd, layers);
+            }
+            layerBegin = layerEnd;
+        }
+        layerStart[layers] = tail;
+        return tail - searchBegin;
+    }
 
-        Queue<Integer> q = new LinkedList<>();
-        q.add(startVertex);
+    /**
+     * Visits the unvisited neighbours of the vertices of a layer.
+     * @param g graph
+     * @param layerBegin index in the queue of the 1st vertex of the layer
+     * @param layerEnd index in the queue after the last vertex of the layer
+     * @param hop number of hops of the next layer
+     */
+    private void expandTopDown(Graph g, int layerBegin, int layerEnd, int hop) {
+        for(int i = layerBegin; i < layerEnd; i++) {
+            int vertex = queue[i];
+            for(int j = 0; j < 4; j++) {
+                int neighbour = g.getNeighbour(vertex, j);
+                if(neighbour != -1 && !isVisited(neighbour)) {
+                    visit(neighbour, hop);
+                }
+            }
+        }
+    }
 
-        while(!q.isEmpty()) {
-            int currentVertex = q.remove();
-            for(int i = 0; i < 4; i++) {
-                int neighbour = g.getVertex(currentVertex).getNeighbour(i);
-                if((neighbour != -1) && (colour[neighbour] == WHITE)) {
-                    colour[neighbour] = GRAY;
-                    q.add(neighbour);
+    /**
+     * Visits the unvisited vertices with a neighbour in a layer.
+     * @param g graph
+     * @param layerBegin index in the queue of the 1st vertex of the layer
+     * @param layerEnd index in the queue after the last vertex of the layer
+     * @param hop number of hops of the next layer
+     */
+    private void expandBottomUp(Graph g, int layerBegin, int layerEnd, int hop) {
+        for(int i = layerBegin; i < layerEnd; i++) {
+            frontier[queue[i] >>> 6] |= 1L << queue[i];
+        }
+        while(firstWord <= lastWord && visited[firstWord] == -1L) {
+            firstWord++;
+        }
+        while(lastWord >= firstWord && visited[lastWord] == -1L) {
+            lastWord--;
+        }
+        for(int word = firstWord; word <= lastWord; word++) {
+            long unvisited = ~visited[word];
+            while(unvisited != 0) {
+                int vertex = (word << 6) + Long.numberOfTrailingZeros(unvisited);
+                unvisited &= unvisited - 1;
+                for(int j = 0; j < 4; j++) {
+                    int neighbour = g.getNeighbour(vertex, j);
+                    if(neighbour != -1 && (frontier[neighbour >>> 6] & (1L << neighbour)) != 0) {
+                        visit(vertex, hop);
+                        break;
+                    }
                 }
             }
-            colour[currentVertex] = BLACK;
         }
+        for(int i = layerBegin; i < layerEnd; i++) {
+            frontier[queue[i] >>> 6] = 0L;
+        }
+    }
+
+    /**
+     * Finds the lowest unvisited vertex.
+     * @return index of the vertex, (-1) if all the vertices were visited
+     */
+    private int findUnvisited() {
+        while(firstWord <= lastWord && visited[firstWord] == -1L) {
+            firstWord++;
+        }
+        if(firstWord > lastWord) {
+            return -1;
+        }
+        return (firstWord << 6) + Long.numberOfTrailingZeros(~visited[firstWord]);
     }
 
     /**
@@ -67,25 +233,98 @@ public class Connectivity {
      * @return true or false
      */
     public boolean isConnected(Graph g) {
-        bfs(g, 0);
-        for(int current : colour) {
-            if(current != BLACK) {
-                return false;
-            }
-        }
-        return true;
+        clear();
+        return bfs(g, 0, -1) == size;
     }
 
     /**
-     * Checks if 2 chosen vertices are connected (to be used by splitGraph).
+     * Checks if 2 chosen vertices are connected, the search stops at the layer of the finish vertex.
      * @param g graph containing the 2 vertices
      * @param startVertex vertex from which the BFS algorithm starts visiting vertices
      * @param finishVertex vertex to be checked if connected to the start vertex
      * @return true or false
      */
     public boolean isConnected(Graph g, int startVertex, int finishVertex) {
-        // used to check if 2 chosen vertices are connected (by splitGraph)
-        bfs(g, startVertex);
-        return (colour[finishVertex] == BLACK);
+        clear();
+        bfs(g, startVertex, finishVertex);
+        return isVisited(finishVertex);
+    }
+
+    /**
+     * Counts the hops from a vertex to the vertices of its component, grouped into layers.
+     * @param g graph
+     * @param startVertex vertex from which the BFS algorithm starts visiting vertices
+     * @return number of reached vertices
+     */
+    public int findLayers(Graph g, int startVertex) {
+        clear();
+        return bfs(g, startVertex, -1);
+    }
+
+    /**
+     * Labels the connected components of the graph with 1 BFS from each unvisited vertex in ascending order
+     * (the reference for Components, which numbers the components the same way).
+     * @param g graph
+     * @return component of each vertex
+     */
+    public int [] labelComponents(Graph g) {
+        clear();
+        int [] label = new int [size];
+        int count = 0;
+        for(int vertex = findUnvisited(); vertex != -1; vertex = findUnvisited()) {
+            bfs(g, vertex, -1);
+            for(int i = searchBegin; i < tail; i++) {
+                label[queue[i]] = count;
+            }
+            count++;
+        }
+        return label;
+    }
+
+    /**
+     * Gets the number of vertices reached by the last search.
+     * @return number of vertices
+     */
+    public int getReachedCount() {
+        return tail - searchBegin;
+    }
+
+    /**
+     * Gets the number of hops from the start vertex of the last search (or of its component for labelComponents).
+     * @param vertex index of the vertex
+     * @return number of hops, (-1) if the vertex wasn't reached
+     */
+    public int getHops(int vertex) {
+        return isVisited(vertex) ? hops[vertex] : -1;
+    }
+
+    /**
+     * Gets the number of layers of the last search.
+     * @return number of layers (the number of hops to the farthest vertex + 1)
+     */
+    public int getLayerCount() {
+        return layers;
+    }
+
+    /**
+     * Gets the vertices of a layer of the last search.
+     * @param layer number of hops from the start vertex
+     * @return array of the vertices of the layer
+     */
+    public int [] getLayer(int layer) {
+        return Arrays.copyOfRange(queue, layerStart[layer], layerStart[layer + 1]);
+    }
+
+    /**
+     * Gets the number of layers of the last search expanded bottom-up.
+     * @return number of layers
+     */
+    public int getBottomUpLayers() {
+        return bottomUpLayers;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BFS: %d vertices in %d layers (%d bottom-up)", getReachedCount(), layers, bottomUpLayers);
     }
 }
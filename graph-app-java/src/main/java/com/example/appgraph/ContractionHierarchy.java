@@ -0,0 +1,1140 @@
+package com.example.appgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Contraction hierarchies index of a static graph, answering shortest path queries with small searches.
+ * Preprocessing contracts vertices in rounds: an independent set of vertices of the lowest priority
+ * (twice the edge difference + contracted neighbours) is contracted in parallel, adding shortcuts between their neighbours
+ * where no witness path avoids them. A vertex gets a rank by the round it's contracted in.
+ * Queries run a bidirectional search which only follows edges to higher ranks. Grid edges are symmetric,
+ * so 1 upward graph (kept in compressed arrays) serves the searches from both vertices.
+ * An index is bound to the graph it was built for (by a fingerprint of its edges)
+ * and can be saved to a file next to the graph file (with a CRC32C checksum of the arrays in the header).
+ * Queries aren't thread-safe.
+ */
+public class ContractionHierarchy {
+    /**
+     * Magic number identifying the index file format ("GRCH" read as a little-endian int).
+     */
+    public static final int MAGIC = 0x48435247;
+
+    /**
+     * Version of the index file format.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * Extension of index files (appended to the name of the graph file).
+     */
+    public static final String EXTENSION = ".ch";
+
+    /**
+     * Size of the header of an index file in bytes.
+     */
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * Size of the buffer used for reading and writing index files.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Largest number of vertices settled by 1 witness search (if exceeded, the shortcut is added anyway).
+     */
+    private static final int WITNESS_SETTLE_LIMIT = 64;
+
+    /**
+     * Largest number of vertices settled by 1 witness search when estimating the priority of a vertex.
+     */
+    private static final int PRIORITY_SETTLE_LIMIT = 16;
+
+    /**
+     * Number of vertices handled by 1 preprocessing task.
+     */
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    /**
+     * Growable list of numbers.
+     */
+    private static class IntList {
+        /**
+         * Elements of the list.
+         */
+        int [] data = new int [16];
+
+        /**
+         * Number of elements.
+         */
+        int size;
+
+        /**
+         * Appends a number.
+         * @param value appended number
+         */
+        void add(int value) {
+            if(size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+    }
+
+    /**
+     * Growable list of shortcuts.
+     */
+    private static class Shortcuts {
+        /**
+         * End vertices of the shortcuts (2 per shortcut).
+         */
+        int [] ends = new int [32];
+
+        /**
+         * Weights of the shortcuts.
+         */
+        double [] weights = new double [16];
+
+        /**
+         * Number of shortcuts.
+         */
+        int count;
+
+        /**
+         * Appends a shortcut.
+         * @param from 1st end vertex
+         * @param to 2nd end vertex
+         * @param weight weight of the shortcut
+         */
+        void add(int from, int to, double weight) {
+            if(count == weights.length) {
+                ends = Arrays.copyOf(ends, count * 4);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+            ends[count * 2] = from;
+            ends[count * 2 + 1] = to;
+            weights[count] = weight;
+            count++;
+        }
+    }
+
+
+    /**
+     * Graph during the contraction: adjacency lists which grow with shortcuts.
+     */
+    private static class Builder {
+        /**
+         * Number of vertices.
+         */
+        final int size;
+
+        /**
+         * Neighbours of each vertex (including contracted ones).
+         */
+        final int [][] adjacent;
+
+        /**
+         * Weights of the edges to the neighbours.
+         */
+        final double [][] adjacentWeight;
+
+        /**
+         * Middle vertex of each edge if it's a shortcut, (-1) for an edge of the graph.
+         */
+        final int [][] adjacentMiddle;
+
+        /**
+         * Number of neighbours of each vertex.
+         */
+        final int [] degree;
+
+        /**
+         * Flags of contracted vertices.
+         */
+        final boolean [] contracted;
+
+        /**
+         * Flags of vertices contracted in the current round (avoided by the witness searches).
+         */
+        final boolean [] contracting;
+
+        /**
+         * Number of contracted neighbours of each vertex.
+         */
+        final int [] contractedNeighbours;
+
+        /**
+         * Priority of each vertex (lower - contracted earlier).
+         */
+        final int [] priority;
+
+        /**
+         * Rank of each vertex (order of contraction).
+         */
+        final int [] rank;
+
+        /**
+         * Witness search of each thread.
+         */
+        final ThreadLocal<WitnessSearch> witness;
+
+        /**
+         * Copies the edges of a graph.
+         * @param g graph
+         */
+        Builder(Graph g) {
+            size = g.getGraphSize();
+            adjacent = new int [size][];
+            adjacentWeight = new double [size][];
+            adjacentMiddle = new int [size][];
+            degree = new int [size];
+            contracted = new boolean [size];
+            contracting = new boolean [size];
+            contractedNeighbours = new int [size];
+            priority = new int [size];
+            rank = new int [size];
+            witness = ThreadLocal.withInitial(() -> new WitnessSearch(this));
+            for(int i = 0; i < size; i++) {
+                adjacent[i] = new int [4];
+                adjacentWeight[i] = new double [4];
+                adjacentMiddle[i] = new int [4];
+                for(int j = 0; j < 4; j++) {
+                    int neighbour = g.getNeighbour(i, j);
+                    if(neighbour != -1) {
+                        adjacent[i][degree[i]] = neighbour;
+                        adjacentWeight[i][degree[i]] = g.getWeight(i, j);
+                        adjacentMiddle[i][degree[i]] = -1;
+                        degree[i]++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds an edge to a vertex or lowers the weight of an existing edge to the same neighbour.
+         * @param vertex index of the vertex
+         * @param neighbour index of the neighbour
+         * @param weight weight of the edge
+         * @param middle middle vertex of the shortcut
+         */
+        void addEdge(int vertex, int neighbour, double weight, int middle) {
+            for(int i = 0; i < degree[vertex]; i++) {
+                if(adjacent[vertex][i] == neighbour) {
+                    if(weight < adjacentWeight[vertex][i]) {
+                        adjacentWeight[vertex][i] = weight;
+                        adjacentMiddle[vertex][i] = middle;
+                    }
+                    return;
+                }
+            }
+            if(degree[vertex] == adjacent[vertex].length) {
+                int capacity = degree[vertex] * 2;
+                adjacent[vertex] = Arrays.copyOf(adjacent[vertex], capacity);
+                adjacentWeight[vertex] = Arrays.copyOf(adjacentWeight[vertex], capacity);
+                adjacentMiddle[vertex] = Arrays.copyOf(adjacentMiddle[vertex], capacity);
+            }
+            adjacent[vertex][degree[vertex]] = neighbour;
+            adjacentWeight[vertex][degree[vertex]] = weight;
+            adjacentMiddle[vertex][degree[vertex]] = middle;
+            degree[vertex]++;
+        }
+
+        /**
+         * Removes the edge of a vertex to a contracted neighbour, so searches don't scan contracted vertices.
+         * @param vertex index of the vertex
+         * @param neighbour index of the contracted neighbour
+         */
+        void removeEdge(int vertex, int neighbour) {
+            for(int i = 0; i < degree[vertex]; i++) {
+                if(adjacent[vertex][i] == neighbour) {
+                    int last = --degree[vertex];
+                    adjacent[vertex][i] = adjacent[vertex][last];
+                    adjacentWeight[vertex][i] = adjacentWeight[vertex][last];
+                    adjacentMiddle[vertex][i] = adjacentMiddle[vertex][last];
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Finds the shortcuts needed to contract a vertex (only reads the graph).
+         * @param vertex index of the vertex
+         * @param shortcuts list for the shortcuts, null to count them only
+         * @return number of shortcuts needed
+         */
+        int findShortcuts(int vertex, Shortcuts shortcuts) {
+            WitnessSearch search = witness.get();
+            int count = 0;
+            int [] neighbours = adjacent[vertex];
+            double [] neighbourWeights = adjacentWeight[vertex];
+            double maxWeight = 0;
+            for(int i = 0; i < degree[vertex]; i++) {
+                if(isActive(neighbours[i])) {
+                    maxWeight = Math.max(maxWeight, neighbourWeights[i]);
+                }
+            }
+            for(int i = 0; i < degree[vertex]; i++) {
+                int source = neighbours[i];
+                if(!isActive(source)) {
+                    continue;
+                }
+                search.run(source, vertex, neighbourWeights[i] + maxWeight,
+                        (shortcuts == null) ? PRIORITY_SETTLE_LIMIT : WITNESS_SETTLE_LIMIT);
+                for(int j = i + 1; j < degree[vertex]; j++) {
+                    int target = neighbours[j];
+                    if(!isActive(target)) {
+                        continue;
+                    }
+                    double viaVertex = neighbourWeights[i] + neighbourWeights[j];
+                    if(search.getDistance(target) > viaVertex) {
+                        count++;
+                        if(shortcuts != null) {
+                            shortcuts.add(source, target, viaVertex);
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Checks if a vertex is still in the graph (not contracted).
+         * @param vertex index of the vertex
+         * @return true or false
+         */
+        boolean isActive(int vertex) {
+            return !contracted[vertex] && !contracting[vertex];
+        }
+
+        /**
+         * Calculates the priority of a vertex.
+         * @param vertex index of the vertex
+         */
+        void updatePriority(int vertex) {
+            int activeDegree = 0;
+            for(int i = 0; i < degree[vertex]; i++) {
+                if(isActive(adjacent[vertex][i])) {
+                    activeDegree++;
+                }
+            }
+            priority[vertex] = 2 * (findShortcuts(vertex, null) - activeDegree) + contractedNeighbours[vertex];
+        }
+
+        /**
+         * Checks if a vertex is contracted before all of its active neighbours
+         * (lower priority, ties broken by a hash of the indexes).
+         * @param vertex index of the vertex
+         * @return true or false
+         */
+        boolean isLocalMinimum(int vertex) {
+            for(int i = 0; i < degree[vertex]; i++) {
+                int neighbour = adjacent[vertex][i];
+                if(isActive(neighbour) && (priority[neighbour] < priority[vertex]
+                        || (priority[neighbour] == priority[vertex] && hash(neighbour) < hash(vertex)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Local Dijkstry search from a neighbour of a contracted vertex, looking for paths avoiding that vertex.
+     */
+    private static class WitnessSearch {
+        /**
+         * Graph during the contraction.
+         */
+        final Builder b;
+
+        /**
+         * Distances of the vertices reached by the current search.
+         */
+        final double [] distance;
+
+        /**
+         * Number of the search in which each vertex was reached.
+         */
+        final int [] stamp;
+
+        /**
+         * Heap of the search.
+         */
+        final LazyHeap heap = new LazyHeap();
+
+        /**
+         * Number of the current search.
+         */
+        int search;
+
+        /**
+         * Creates the search arrays.
+         * @param b graph during the contraction
+         */
+        WitnessSearch(Builder b) {
+            this.b = b;
+            distance = new double [b.size];
+            stamp = new int [b.size];
+        }
+
+        /**
+         * Runs a search over the active vertices.
+         * @param source vertex from which the search starts
+         * @param avoided vertex being contracted
+         * @param limit distance above which the search stops
+         * @param settleLimit number of settled vertices after which the search stops
+         */
+        void run(int source, int avoided, double limit, int settleLimit) {
+            search++;
+            if(search == 0) {
+                Arrays.fill(stamp, 0);
+                search = 1;
+            }
+            heap.count = 0;
+            stamp[source] = search;
+            distance[source] = 0.0;
+            heap.push(source, 0.0);
+            int settled = 0;
+            while(heap.count > 0 && heap.peekKey() <= limit && settled < settleLimit) {
+                double key = heap.peekKey();
+                int vertex = heap.pop();
+                if(key > distance[vertex]) {
+                    continue;
+                }
+                settled++;
+                for(int i = 0; i < b.degree[vertex]; i++) {
+                    int neighbour = b.adjacent[vertex][i];
+                    if(neighbour == avoided || !b.isActive(neighbour)) {
+                        continue;
+                    }
+                    double newDistance = key + b.adjacentWeight[vertex][i];
+                    if(stamp[neighbour] != search || newDistance < distance[neighbour]) {
+                        stamp[neighbour] = search;
+                        distance[neighbour] = newDistance;
+                        heap.push(neighbour, newDistance);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Gets the distance of a vertex found by the last search (an upper bound if not settled).
+         * @param vertex index of the vertex
+         * @return distance, infinity if not reached
+         */
+        double getDistance(int vertex) {
+            return (stamp[vertex] == search) ? distance[vertex] : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Number of rows of the graph.
+     */
+    private final int rows;
+
+    /**
+     * Number of columns of the graph.
+     */
+    private final int columns;
+
+    /**
+     * Fingerprint of the edges of the graph.
+     */
+    private final long fingerprint;
+
+    /**
+     * Rank of each vertex.
+     */
+    private final int [] rank;
+
+    /**
+     * Index of the 1st upward edge of each vertex (and the number of edges at the end).
+     */
+    private final int [] firstEdge;
+
+    /**
+     * Target vertex of each upward edge.
+     */
+    private final int [] target;
+
+    /**
+     * Weight of each upward edge.
+     */
+    private final double [] weight;
+
+    /**
+     * Middle vertex of each upward edge if it's a shortcut, (-1) for an edge of the graph.
+     */
+    private final int [] middle;
+
+    /**
+     * Graph the index is used with.
+     */
+    private final Graph g;
+
+    /**
+     * Version of the graph the index was built or loaded for.
+     */
+    private final long graphVersion;
+
+    /**
+     * Distances of the forward (index 0) and backward (index 1) search.
+     */
+    private final double [][] distance = new double [2][];
+
+    /**
+     * Upward edge through which each vertex was reached by the forward and backward search.
+     */
+    private final int [][] edgeTo = new int [2][];
+
+    /**
+     * Number of the query in which each vertex was reached by the forward and backward search.
+     */
+    private final int [][] stamp = new int [2][];
+
+    /**
+     * Heaps of the forward and backward search.
+     */
+    private final LazyHeap [] heaps = {new LazyHeap(), new LazyHeap()};
+
+    /**
+     * Number of the current query.
+     */
+    private int query;
+
+    /**
+     * Length of the path found by the last query.
+     */
+    private double pathDistance;
+
+    /**
+     * Number of vertices settled by the last query.
+     */
+    private int settled;
+
+    /**
+     * Creates an index from its arrays.
+     * @param g graph the index is used with
+     * @param fingerprint fingerprint of the edges of the graph
+     * @param rank rank of each vertex
+     * @param firstEdge index of the 1st upward edge of each vertex
+     * @param target target vertex of each upward edge
+     * @param weight weight of each upward edge
+     * @param middle middle vertex of each upward edge
+     */
+    private ContractionHierarchy(Graph g, long fingerprint, int [] rank, int [] firstEdge, int [] target,
+                                 double [] weight, int [] middle) {
+        this.g = g;
+        this.graphVersion = g.getVersion();
+        this.rows = g.getRows();
+        this.columns = g.getColumns();
+        this.fingerprint = fingerprint;
+        this.rank = rank;
+        this.firstEdge = firstEdge;
+        this.target = target;
+        this.weight = weight;
+        this.middle = middle;
+        for(int i = 0; i < 2; i++) {
+            distance[i] = new double [rank.length];
+            edgeTo[i] = new int [rank.length];
+            stamp[i] = new int [rank.length];
+        }
+    }
+
+    /**
+     * Mixes the bits of a number (SplitMix64 finalizer).
+     * @param x number
+     * @return mixed bits
+     */
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Calculates a hash of a vertex index used to break ties of priorities.
+     * @param vertex index of the vertex
+     * @return hash
+     */
+    private static long hash(int vertex) {
+        return mix(vertex);
+    }
+
+    /**
+     * Calculates a fingerprint of the dimensions and edges of a graph.
+     * @param g graph
+     * @return fingerprint
+     */
+    public static long getFingerprint(Graph g) {
+        long h = mix(((long) g.getRows() << 32) | g.getColumns());
+        for(int i = 0; i < g.getGraphSize(); i++) {
+            for(int j = Vertex.RIGHT; j <= Vertex.LOWER; j++) {
+                if(g.hasNeighbour(i, j)) {
+                    h = mix(h ^ (i * 2L + (j - Vertex.RIGHT)));
+                    h = mix(h ^ Double.doubleToLongBits(g.getWeight(i, j)));
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Runs a task for each chunk of a range of numbers on the common pool and waits for all of them.
+     * @param count size of the range
+     * @param chunkTask task for the numbers from the 1st argument to the 2nd one (exclusive)
+     */
+    private static void forEachChunk(int count, BiConsumer<Integer, Integer> chunkTask) {
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for(int first = 0; first < count; first += CHUNK_SIZE) {
+            int from = first;
+            int to = Math.min(first + CHUNK_SIZE, count);
+            tasks.add(ForkJoinPool.commonPool().submit(() -> chunkTask.accept(from, to)));
+        }
+        for(ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    /**
+     * Builds the index of a graph (in parallel on the common pool).
+     * @param g graph
+     * @return index of the graph
+     */
+    public static ContractionHierarchy build(Graph g) {
+        Builder b = new Builder(g);
+        int size = b.size;
+        forEachChunk(size, (from, to) -> {
+            for(int i = from; i < to; i++) {
+                b.updatePriority(i);
+            }
+        });
+
+        int [] remaining = new int [size];
+        for(int i = 0; i < size; i++) {
+            remaining[i] = i;
+        }
+        int remainingCount = size;
+        boolean [] dirty = new boolean [size];
+        int nextRank = 0;
+        while(remainingCount > 0) {
+            // select an independent set of vertices of locally lowest priority
+            int [] candidates = remaining;
+            int candidateCount = remainingCount;
+            boolean [] selected = new boolean [candidateCount];
+            forEachChunk(candidateCount, (from, to) -> {
+                for(int i = from; i < to; i++) {
+                    selected[i] = b.isLocalMinimum(candidates[i]);
+                }
+            });
+            IntList contracted = new IntList();
+            int kept = 0;
+            for(int i = 0; i < candidateCount; i++) {
+                if(selected[i]) {
+                    contracted.add(candidates[i]);
+                    b.contracting[candidates[i]] = true;
+                } else {
+                    remaining[kept++] = candidates[i];
+                }
+            }
+            remainingCount = kept;
+
+            // find the shortcuts of the set in parallel (the graph is only read)
+            int chunks = (contracted.size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            Shortcuts [] shortcuts = new Shortcuts [chunks];
+            int [] shortcutCounts = new int [contracted.size];
+            forEachChunk(contracted.size, (from, to) -> {
+                Shortcuts list = new Shortcuts();
+                for(int i = from; i < to; i++) {
+                    shortcutCounts[i] = b.findShortcuts(contracted.data[i], list);
+                }
+                shortcuts[from / CHUNK_SIZE] = list;
+            });
+
+            // add the shortcuts and mark the contracted vertices (sequentially, in a fixed order)
+            for(int chunk = 0; chunk < chunks; chunk++) {
+                Shortcuts list = shortcuts[chunk];
+                int next = 0;
+                for(int i = chunk * CHUNK_SIZE; i < Math.min((chunk + 1) * CHUNK_SIZE, contracted.size); i++) {
+                    int vertex = contracted.data[i];
+                    for(int k = next; k < next + shortcutCounts[i]; k++) {
+                        int from = list.ends[k * 2];
+                        int to = list.ends[k * 2 + 1];
+                        b.addEdge(from, to, list.weights[k], vertex);
+                        b.addEdge(to, from, list.weights[k], vertex);
+                    }
+                    next += shortcutCounts[i];
+                    b.contracting[vertex] = false;
+                    b.contracted[vertex] = true;
+                    b.rank[vertex] = nextRank++;
+                    for(int k = 0; k < b.degree[vertex]; k++) {
+                        int neighbour = b.adjacent[vertex][k];
+                        if(!b.contracted[neighbour]) {
+                            b.removeEdge(neighbour, vertex);
+                            b.contractedNeighbours[neighbour]++;
+                            dirty[neighbour] = true;
+                        }
+                    }
+                }
+            }
+
+            // update the priorities of the neighbours of the contracted vertices
+            int [] updated = remaining;
+            forEachChunk(remainingCount, (from, to) -> {
+                for(int i = from; i < to; i++) {
+                    if(dirty[updated[i]]) {
+                        b.updatePriority(updated[i]);
+                    }
+                }
+            });
+            for(int i = 0; i < remainingCount; i++) {
+                dirty[remaining[i]] = false;
+            }
+        }
+
+        // keep the upward edges only
+        int [] firstEdge = new int [size + 1];
+        for(int i = 0; i < size; i++) {
+            int count = 0;
+            for(int j = 0; j < b.degree[i]; j++) {
+                if(b.rank[b.adjacent[i][j]] > b.rank[i]) {
+                    count++;
+                }
+            }
+            firstEdge[i + 1] = firstEdge[i] + count;
+        }
+        int [] target = new int [firstEdge[size]];
+        double [] weight = new double [firstEdge[size]];
+        int [] middle = new int [firstEdge[size]];
+        for(int i = 0; i < size; i++) {
+            int edge = firstEdge[i];
+            for(int j = 0; j < b.degree[i]; j++) {
+                if(b.rank[b.adjacent[i][j]] > b.rank[i]) {
+                    target[edge] = b.adjacent[i][j];
+                    weight[edge] = b.adjacentWeight[i][j];
+                    middle[edge] = b.adjacentMiddle[i][j];
+                    edge++;
+                }
+            }
+        }
+        return new ContractionHierarchy(g, getFingerprint(g), b.rank, firstEdge, target, weight, middle);
+    }
+
+    /**
+     * Checks if the index can be used for a graph in its current state.
+     * @param g graph
+     * @return true if the index was built or loaded for this graph and the graph hasn't changed since
+     */
+    public boolean isCurrent(Graph g) {
+        return this.g == g && g.getVersion() == graphVersion;
+    }
+
+    /**
+     * Gets the number of upward edges (edges of the graph and shortcuts).
+     * @return number of edges
+     */
+    public int getEdgeCount() {
+        return firstEdge[firstEdge.length - 1];
+    }
+
+    /**
+     * Gets the number of upward edges which are shortcuts.
+     * @return number of shortcuts
+     */
+    public int getShortcutCount() {
+        int count = 0;
+        for(int m : middle) {
+            if(m != -1) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the length of the path found by the last query.
+     * @return distance, infinity if the path doesn't exist
+     */
+    public double getDistance() {
+        return pathDistance;
+    }
+
+    /**
+     * Gets the number of vertices settled by the last query.
+     * @return number of settled vertices
+     */
+    public int getSettledCount() {
+        return settled;
+    }
+
+    /**
+     * Finds the shortest path between 2 vertices.
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @return array with the path (finish vertex first, start vertex last), null if the path doesn't exist
+     */
+    public int [] findPath(int startVertex, int finishVertex) {
+        query++;
+        if(query == 0) {
+            Arrays.fill(stamp[0], 0);
+            Arrays.fill(stamp[1], 0);
+            query = 1;
+        }
+        settled = 0;
+        pathDistance = Double.POSITIVE_INFINITY;
+        if(startVertex == finishVertex) {
+            // same result as Path.findPath
+            return null;
+        }
+        int meeting = -1;
+        int [] sources = {startVertex, finishVertex};
+        for(int side = 0; side < 2; side++) {
+            heaps[side].count = 0;
+            stamp[side][sources[side]] = query;
+            distance[side][sources[side]] = 0.0;
+            edgeTo[side][sources[side]] = -1;
+            heaps[side].push(sources[side], 0.0);
+        }
+        while(true) {
+            // each search stops when its lowest key reaches the best path length
+            int side = (heaps[0].peekKey() <= heaps[1].peekKey()) ? 0 : 1;
+            if(heaps[side].peekKey() >= pathDistance) {
+                side = 1 - side;
+                if(heaps[side].peekKey() >= pathDistance) {
+                    break;
+                }
+            }
+            double key = heaps[side].peekKey();
+            int vertex = heaps[side].pop();
+            if(key > distance[side][vertex]) {
+                continue;
+            }
+            settled++;
+            if(stamp[1 - side][vertex] == query && key + distance[1 - side][vertex] < pathDistance) {
+                pathDistance = key + distance[1 - side][vertex];
+                meeting = vertex;
+            }
+            for(int edge = firstEdge[vertex]; edge < firstEdge[vertex + 1]; edge++) {
+                int neighbour = target[edge];
+                double newDistance = key + weight[edge];
+                if(stamp[side][neighbour] != query || newDistance < distance[side][neighbour]) {
+                    stamp[side][neighbour] = query;
+                    distance[side][neighbour] = newDistance;
+                    edgeTo[side][neighbour] = edge;
+                    heaps[side].push(neighbour, newDistance);
+                }
+            }
+        }
+        if(meeting == -1) {
+            return null;
+        }
+
+        // path from the start vertex to the meeting vertex, then from the meeting vertex to the finish vertex
+        IntList upward = new IntList();
+        for(int vertex = meeting; edgeTo[0][vertex] != -1; vertex = getSource(edgeTo[0][vertex])) {
+            upward.add(edgeTo[0][vertex]);
+        }
+        IntList path = new IntList();
+        path.add(startVertex);
+        for(int i = upward.size - 1; i >= 0; i--) {
+            int edge = upward.data[i];
+            unpack(getSource(edge), target[edge], edge, path);
+        }
+        for(int vertex = meeting; edgeTo[1][vertex] != -1; vertex = getSource(edgeTo[1][vertex])) {
+            int edge = edgeTo[1][vertex];
+            unpack(vertex, getSource(edge), edge, path);
+        }
+        int [] result = new int [path.size];
+        for(int i = 0; i < path.size; i++) {
+            result[i] = path.data[path.size - 1 - i];
+        }
+        return result;
+    }
+
+    /**
+     * Finds the vertex an upward edge starts from.
+     * @param edge index of the edge
+     * @return index of the vertex
+     */
+    private int getSource(int edge) {
+        // the last vertex whose 1st edge isn't after the edge
+        int low = 0;
+        int high = rank.length - 1;
+        while(low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if(firstEdge[mid] <= edge) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the upward edge between 2 vertices.
+     * @param lower vertex of the lower rank
+     * @param higher vertex of the higher rank
+     * @return index of the edge
+     */
+    private int findEdge(int lower, int higher) {
+        for(int edge = firstEdge[lower]; edge < firstEdge[lower + 1]; edge++) {
+            if(target[edge] == higher) {
+                return edge;
+            }
+        }
+        throw new IllegalStateException("Missing edge of a shortcut.");
+    }
+
+    /**
+     * Appends the vertices of an edge (with shortcuts replaced by the edges they stand for) to a path.
+     * @param from vertex at which the path ends now
+     * @param to vertex at which the edge ends
+     * @param edge index of the edge
+     * @param path path (the vertices after the 1st one are appended)
+     */
+    private void unpack(int from, int to, int edge, IntList path) {
+        // stack of (from, to, edge) segments still to be appended, the top one first
+        IntList stack = new IntList();
+        stack.add(from);
+        stack.add(to);
+        stack.add(edge);
+        while(stack.size > 0) {
+            int e = stack.data[--stack.size];
+            int b = stack.data[--stack.size];
+            int a = stack.data[--stack.size];
+            int m = middle[e];
+            if(m == -1) {
+                path.add(b);
+                continue;
+            }
+            // the middle vertex has a lower rank than both ends
+            stack.add(m);
+            stack.add(b);
+            stack.add(findEdge(m, b));
+            stack.add(a);
+            stack.add(m);
+            stack.add(findEdge(m, a));
+        }
+    }
+
+    /**
+     * Saves the index into a file.
+     * @param file index file
+     * @throws IOException in case of a writing error
+     */
+    public void save(File file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.position(HEADER_SIZE);
+            for(int r : rank) {
+                ensure(channel, buffer, 4, crc);
+                buffer.putInt(r);
+            }
+            for(int f : firstEdge) {
+                ensure(channel, buffer, 4, crc);
+                buffer.putInt(f);
+            }
+            for(int i = 0; i < getEdgeCount(); i++) {
+                ensure(channel, buffer, 16, crc);
+                buffer.putInt(target[i]).putDouble(weight[i]).putInt(middle[i]);
+            }
+            ensure(channel, buffer, BUFFER_SIZE, crc);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(columns).putLong(fingerprint)
+                    .putInt(getEdgeCount()).putInt(0).putLong(crc.getValue());
+            header.clear();
+            channel.write(header, 0);
+        }
+    }
+
+    /**
+     * Writes the buffer contents into the file and updates the checksum if there is no room for more bytes.
+     * @param channel channel of the file
+     * @param buffer buffer with the data to be written
+     * @param bytes number of bytes to be put (BUFFER_SIZE writes whatever is in the buffer)
+     * @param crc checksum of the written data
+     * @throws IOException in case of a writing error
+     */
+    private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes, CRC32C crc) throws IOException {
+        if(buffer.remaining() < bytes) {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Makes sure there are enough bytes in the buffer to be read, reading more from the file if needed
+     * and updating the checksum with the bytes read.
+     * @param channel channel of the file
+     * @param buffer buffer with the data read
+     * @param bytes number of bytes to be read
+     * @param crc checksum of the read data
+     * @throws IOException in case of a reading error or a file too short
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, int bytes, CRC32C crc) throws IOException {
+        if(buffer.remaining() < bytes) {
+            buffer.compact();
+            while(buffer.position() < bytes) {
+                int start = buffer.position();
+                if(channel.read(buffer) == -1) {
+                    throw new IOException("Incorrect file size.");
+                }
+                ByteBuffer read = buffer.duplicate();
+                read.flip().position(start);
+                crc.update(read);
+            }
+            buffer.flip();
+        }
+    }
+
+    /**
+     * Checks that the arrays of a loaded index form an upward graph:
+     * ranks are a permutation of the vertices, edges of each vertex are a range of the edge arrays,
+     * edges lead to higher ranks and shortcuts stand for a vertex of a lower rank than both ends.
+     * @param rank rank of each vertex
+     * @param firstEdge index of the 1st upward edge of each vertex
+     * @param target target vertex of each edge
+     * @param weight weight of each edge
+     * @param middle middle vertex of each shortcut, (-1) for the edges of the graph
+     * @throws IOException if the arrays aren't consistent
+     */
+    private static void validate(int [] rank, int [] firstEdge, int [] target, double [] weight, int [] middle)
+            throws IOException {
+        int size = rank.length;
+        boolean [] used = new boolean [size];
+        for(int r : rank) {
+            if(r < 0 || r >= size || used[r]) {
+                throw new IOException("Incorrect vertex rank.");
+            }
+            used[r] = true;
+        }
+        if(firstEdge[0] != 0 || firstEdge[size] != target.length) {
+            throw new IOException("Incorrect edge range.");
+        }
+        for(int i = 0; i < size; i++) {
+            if(firstEdge[i + 1] < firstEdge[i]) {
+                throw new IOException("Incorrect edge range.");
+            }
+            for(int edge = firstEdge[i]; edge < firstEdge[i + 1]; edge++) {
+                int to = target[edge];
+                int m = middle[edge];
+                if(to < 0 || to >= size || rank[to] <= rank[i] || !(weight[edge] >= 0.0)) {
+                    throw new IOException("Incorrect edge.");
+                }
+                if(m != -1 && (m < 0 || m >= size || rank[m] >= rank[i])) {
+                    throw new IOException("Incorrect shortcut.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the index of a graph from a file.
+     * @param file index file
+     * @param g graph the index was built for
+     * @return index of the graph
+     * @throws IOException in case of an incorrect file format, a corrupted file or an index of another graph
+     */
+    public static ContractionHierarchy load(File file, Graph g) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while(header.hasRemaining()) {
+                if(channel.read(header) == -1) {
+                    throw new IOException("Incorrect file size.");
+                }
+            }
+            header.flip();
+            if(header.getInt() != MAGIC) {
+                throw new IOException("Incorrect file format.");
+            }
+            if(header.getInt() != VERSION) {
+                throw new IOException("Unsupported index version.");
+            }
+            int rows = header.getInt();
+            int columns = header.getInt();
+            long fingerprint = header.getLong();
+            int edges = header.getInt();
+            long checksum = header.getLong(32);
+            if(rows != g.getRows() || columns != g.getColumns() || fingerprint != getFingerprint(g)) {
+                throw new IOException("The index was built for another graph.");
+            }
+            if(edges < 0 || channel.size() != HEADER_SIZE + g.getGraphSize() * 8L + 4 + edges * 16L) {
+                throw new IOException("Incorrect file size.");
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            int size = g.getGraphSize();
+            int [] rank = new int [size];
+            for(int i = 0; i < size; i++) {
+                fill(channel, buffer, 4, crc);
+                rank[i] = buffer.getInt();
+            }
+            int [] firstEdge = new int [size + 1];
+            for(int i = 0; i <= size; i++) {
+                fill(channel, buffer, 4, crc);
+                firstEdge[i] = buffer.getInt();
+            }
+            int [] target = new int [edges];
+            double [] weight = new double [edges];
+            int [] middle = new int [edges];
+            for(int i = 0; i < edges; i++) {
+                fill(channel, buffer, 16, crc);
+                target[i] = buffer.getInt();
+                weight[i] = buffer.getDouble();
+                middle[i] = buffer.getInt();
+            }
+            if(crc.getValue() != checksum) {
+                throw new IOException("Checksum mismatch.");
+            }
+            validate(rank, firstEdge, target, weight, middle);
+            return new ContractionHierarchy(g, fingerprint, rank, firstEdge, target, weight, middle);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Contraction hierarchy: %d vertices, %d upward edges (%d shortcuts)",
+                rank.length, getEdgeCount(), getShortcutCount());
+    }
+
+    /**
+     * Builds the index of a graph file and saves it next to the file.
+     * Usage: ContractionHierarchy graphFile
+     * @param args path of the graph file
+     * @throws IOException in case of an incorrect file format or a writing error
+     */
+    public static void main(String [] args) throws IOException {
+        File graphFile = new File(args[0]);
+        Graph g = new Graph();
+        if(BinaryGraphFile.isBinary(graphFile)) {
+            g.readBinaryGraph(graphFile);
+        } else {
+            g.readGraph(graphFile);
+        }
+        long begin = System.nanoTime();
+        ContractionHierarchy index = build(g);
+        System.out.printf("Built in %.1f ms.%n", (System.nanoTime() - begin) / 1e6);
+        System.out.println(index);
+        index.save(new File(graphFile.getPath() + EXTENSION));
+    }
+}
@@ -1,28 +1,35 @@
 package com.example.appgraph;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
-import javafx.geometry.Point2D;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
 import javafx.stage.FileChooser;
-import javafx.scene.paint.Color;
 import javafx.scene.control.*;
+import javafx.scene.layout.Pane;
 import java.io.*;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.lang.Double.parseDouble;
 import static java.lang.Integer.parseInt;
-import static javafx.scene.paint.Color.*;
 
 /**
  * Class controlling the GUI.
  */
 public class Controllers implements Initializable {
+    /**
+     * Choice of the save dialog for writing the weights exactly.
+     */
+    private static final String EXACT_WEIGHTS = "Exact";
+
     /**
      * ScrollPane in which the canvas with the graph is located.
      */
@@ -105,64 +112,64 @@ public class Controllers implements Initializable {
     FileChooser fileChooser = new FileChooser();
 
     /**
-     * Canvas in the ScrollPane on which the graph is drawn.
+     * Content of the ScrollPane, sized to the whole graph (holds only the canvas).
      */
-    Canvas canvas;
+    Pane content = new Pane();
 
     /**
-     * GraphicContext for drawing on the canvas.
+     * Canvas of the size of the viewport, moved to the visible part of the content, on which the graph is drawn.
      */
-    GraphicsContext gc;
+    Canvas canvas = new Canvas();
 
     /**
-     * Map of vertex coordinates on the canvas.
+     * GraphicContext for drawing on the canvas.
      */
-    Map<Integer, Point2D> vertexCoordinates = new HashMap<>();
+    GraphicsContext gc = canvas.getGraphicsContext2D();
 
     /**
-     * Index of a vertex from which the path begins.
+     * Graph shown in the ScrollPane, null before the 1st graph is generated or imported.
      */
-    int startVertex;
+    Graph drawnGraph;
 
     /**
-     * Index of a vertex to which the path leads.
+     * Image receiving the pixels of the rasterized picture, drawn on the canvas.
      */
-    int finishVertex;
+    WritableImage image;
 
     /**
-     * List of clicked nodes.
+     * Number of the latest requested picture (only this one is drawn when ready).
      */
-    ArrayList<Point2D> clickedNodes = new ArrayList<>(2); // to be changed?
+    long renderGeneration;
 
     /**
-     * Dark blue hue (lower end of the weight range).
+     * Cache of shortest path trees (repeated clicks from the same vertex don't search again).
      */
-    private static final double BLUE = Color.DARKBLUE.getHue();
+    PathTreeCache treeCache = new PathTreeCache(PathTreeCache.DEFAULT_BUDGET);
 
     /**
-     * Red hue (upper end of the weight range).
+     * Contraction hierarchies index saved next to the imported graph file, null if there isn't one.
      */
-    private static final double RED = Color.RED.getHue();
+    ContractionHierarchy hierarchy;
 
     /**
-     * Vertex graphical representation diameter.
+     * Index of a vertex from which the path begins.
      */
-    private static final int POINT_SIZE = 20;
+    int startVertex;
 
     /**
-     * Edge graphical representation length.
+     * Index of a vertex to which the path leads.
      */
-    private static final int EDGE_LENGTH = 20;
+    int finishVertex;
 
     /**
-     * Edge graphical representation width.
+     * Number of selected vertices (0, 1 - start vertex, 2 - start and finish vertex).
      */
-    private static final int EDGE_THICKNESS = 5;
+    int selectedCount;
 
     /**
-     * Margin on the canvas.
+     * Shortest path between the selected vertices (from the finish to the start vertex), null if not drawn.
      */
-    private static final int PADDING = 20;
+    int [] path;
 
     /**
      * Generates a graph from user-provided parameters.
@@ -176,27 +183,33 @@ public class Controllers implements Initializable {
             double w2 = parseDouble(weightUpperField.getText());
             int segments = parseInt(segmentsField.getText());
 
-            if (rows * columns > 10000 || rows <= 0 || columns <= 0 ||
+            if (!Graph.isValidSize(rows, columns) ||
                     w1 >= w2 || w1 <= 0.0 || w2 >= 100.0 ||
-                    segments <= 0 || segments > 10) {
+                    segments <= 0 || (long) segments > (long) rows * columns) {
                 throw new IllegalArgumentException();
             }
 
             gg = new Graph(rows, columns, w1, w2);
             gg.generateGraph();
+            // trees of the previous graph won't be used again
+            treeCache.clear();
+            hierarchy = null;
 
             System.out.println("Rows = " + rows);
             System.out.println("Columns = " + columns);
             System.out.println("w1 = " + w1);
             System.out.println("w2 = " + w2);
+            System.out.println("Seed = " + ((Graph) gg).getSeed());
 
-            gg.printGraph();
+            if (!((Graph) gg).isLarge()) {
+                gg.printGraph();
+            }
 
             updateWeightLabels((Graph) gg);
 
             // splitting the graph
-            for(int i = 1; i < segments; i++) {
-                gg.splitGraph();
+            if (segments > 1) {
+                gg.splitGraph(segments);
             }
 
             drawGraph((Graph) gg);
@@ -232,11 +245,27 @@ public class Controllers implements Initializable {
 
         gg = null;
         rg = new Graph();
+        treeCache.clear();
+        hierarchy = null;
 
         try {
-            FileReader reader = new FileReader(selectedFile.getAbsolutePath());
-            rg.readGraph(reader);
-            rg.printGraph();
+            if (BinaryGraphFile.isBinary(selectedFile)) {
+                rg.readBinaryGraph(selectedFile);
+            } else {
+                rg.readGraph(selectedFile);
+            }
+            File indexFile = new File(selectedFile.getPath() + ContractionHierarchy.EXTENSION);
+            if (indexFile.exists()) {
+                try {
+                    hierarchy = ContractionHierarchy.load(indexFile, (Graph) rg);
+                    System.out.println(hierarchy);
+                } catch (IOException e) {
+                    System.err.println("Index not used: " + e.getMessage());
+                }
+            }
+            if (!((Graph) rg).isLarge()) {
+                rg.printGraph();
+            }
             updateWeightLabels((Graph) rg);
             drawGraph((Graph) rg);
             checkConnectivity.setDisable(false);
@@ -247,7 +276,7 @@ public class Controllers implements Initializable {
             Alert popUp = new Alert(Alert.AlertType.ERROR);
             popUp.setTitle("Error");
             popUp.setHeaderText("Incorrect file format");
-            popUp.setContentText("Please provide an input file formatted correctly.");
+            popUp.setContentText("Please provide an input file formatted correctly.\n" + e.getMessage());
             popUp.showAndWait();
         }
     }
@@ -257,6 +286,15 @@ public class Controllers implements Initializable {
         fileChooser.setInitialDirectory(new File("C:\\"));
         saveFile.setDisable(true);
         checkConnectivity.setDisable(true);
+
+        // only the visible part of the graph is drawn, again after every scroll or resize
+        content.getChildren().add(canvas);
+        scrollPane.hvalueProperty().addListener(observable -> redraw());
+        scrollPane.vvalueProperty().addListener(observable -> redraw());
+        scrollPane.viewportBoundsProperty().addListener(observable -> redraw());
+        // enable vertex selection for shortest path finding
+        canvas.setOnMouseClicked(event -> selectVertex(canvas.getLayoutX() + event.getX(),
+                canvas.getLayoutY() + event.getY()));
     }
 
     /**
@@ -271,8 +309,9 @@ public class Controllers implements Initializable {
             checked = (Graph)rg;
         }
 
-        Connectivity bfs = new Connectivity(checked);
-        if (bfs.isConnected(checked)) {
+        Components components = checked.getComponents();
+        System.out.println(components);
+        if (components.isConnected()) {
             connectivityLabel.setText("The graph is connected.");
             System.out.println("The graph is connected.");
         } else {
@@ -282,201 +321,190 @@ public class Controllers implements Initializable {
     }
 
     /**
-     * Saves the generated graph into a file.
-     * @throws FileNotFoundException in case of the file being unable to be found
-     * @throws UnsupportedEncodingException in case of an unsupported encoding
+     * Saves the generated graph into a file (in the binary format if the file name ends with BinaryGraphFile.EXTENSION,
+     * otherwise in the text format with the precision of the weights chosen in a dialog).
+     * @throws IOException in case of a writing error
      */
     @FXML
-    public void saveGraph() throws FileNotFoundException, UnsupportedEncodingException {
+    public void saveGraph() throws IOException {
         File selectedFile = fileChooser.showSaveDialog(null);
+        if (selectedFile == null) {
+            return;
+        }
 
         System.out.println(selectedFile.getAbsolutePath());
 
         String value = selectedFile.getAbsolutePath();
-        PrintWriter writer = new PrintWriter(value, "UTF-8");
-            gg.writeGraph(writer);
+        if (value.endsWith(BinaryGraphFile.EXTENSION)) {
+            gg.writeBinaryGraph(selectedFile);
+        } else {
+            Optional<String> precision = askPrecision();
+            if (precision.isEmpty()) {
+                return;
+            }
+            gg.writeGraph(selectedFile, precision.get().equals(EXACT_WEIGHTS)
+                    ? TextGraphWriter.FULL_PRECISION : parseInt(precision.get()));
+        }
+        if (!((Graph) gg).isLarge()) {
             gg.printGraph();
+        }
+    }
+
+    /**
+     * Asks for the number of decimal places of the weights in a text file (fewer places make smaller files).
+     * @return EXACT_WEIGHTS or the number of decimal places, empty if the dialog was cancelled
+     */
+    private Optional<String> askPrecision() {
+        List<String> choices = new ArrayList<>();
+        choices.add(EXACT_WEIGHTS);
+        for (int i = 0; i <= TextGraphWriter.MAX_PRECISION; i++) {
+            choices.add(String.valueOf(i));
+        }
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(EXACT_WEIGHTS, choices);
+        dialog.setTitle("Save graph");
+        dialog.setHeaderText("Precision of the weights");
+        dialog.setContentText("Decimal places:");
+        return dialog.showAndWait();
     }
 
     /**
-     * Draws the graph, highlights a clicked vertex.
+     * Shows a graph: sizes the content of the ScrollPane to the whole grid, clears the selection and draws the visible part.
      * @param g generated graph or graph read from a file
      */
     public void drawGraph(Graph g) {
-        // clear canvas
-        canvas = new Canvas(g.getColumns() * (POINT_SIZE + EDGE_LENGTH) + PADDING,
-                g.getRows() * (POINT_SIZE + EDGE_LENGTH) + PADDING);
-        scrollPane.setContent(canvas);
-        gc = canvas.getGraphicsContext2D();
-        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-
-        // draw nodes
-        gc.setFill(Color.BLACK);
-        for (int i = 0; i < g.getRows(); i++) {
-            for (int j = 0; j < g.getColumns(); j++) {
-                int vertexIndex = i * g.getColumns() + j;
-                gc.fillOval((j * (POINT_SIZE + EDGE_LENGTH) + PADDING),
-                        (i * (POINT_SIZE + EDGE_LENGTH) + PADDING),
-                        POINT_SIZE,
-                        POINT_SIZE);
-                vertexCoordinates.put(vertexIndex,
-                        new Point2D((j * (POINT_SIZE + EDGE_LENGTH) + (POINT_SIZE / 2) + PADDING),
-                                (i * (POINT_SIZE + EDGE_LENGTH) + (POINT_SIZE / 2) + PADDING)));
-            }
+        drawnGraph = g;
+        selectedCount = 0;
+        path = null;
+        content.setPrefSize(g.getColumns() * (double) GraphRenderer.CELL_SIZE + GraphRenderer.PADDING,
+                g.getRows() * (double) GraphRenderer.CELL_SIZE + GraphRenderer.PADDING);
+        if (scrollPane.getContent() != content) {
+            scrollPane.setContent(content);
         }
+        redraw();
+    }
 
-        // draw horizontal edges
-        for (int i = 0; i < g.getRows(); i++) {
-            for (int j = 0; j < (g.getColumns() - 1); j++) {
-                int vertexIndex = i * g.getColumns() + j;
-                if (g.getVertex(vertexIndex).hasNeighbour(Vertex.RIGHT)) {
-                    gc.setFill(getWeightColour(g, g.getVertex(vertexIndex).getWeight(Vertex.RIGHT)));
-                    gc.fillRect(((j + 1) * POINT_SIZE + j * EDGE_LENGTH + PADDING),
-                            ((2 * i + 1) * 0.5 * (POINT_SIZE - EDGE_THICKNESS) + i * (EDGE_LENGTH + EDGE_THICKNESS) + PADDING),
-                            EDGE_LENGTH,
-                            EDGE_THICKNESS);
-                }
-            }
+    /**
+     * Draws the part of the graph visible in the viewport of the ScrollPane on a canvas of the viewport size
+     * (called after every scroll, resize and change of the selection).
+     * The picture is rasterized by GraphRenderer in the background, the FX thread only copies its pixels
+     * into an image and draws it; pictures made outdated by a later call before they are ready are dropped.
+     */
+    private void redraw() {
+        if (drawnGraph == null) {
+            return;
         }
-
-        // draw vertical edges
-        for (int i = 0; i < (g.getRows() - 1); i++) {
-            for (int j = 0; j < g.getColumns(); j++) {
-                int vertexIndex = i * g.getColumns() + j;
-                if (g.getVertex(vertexIndex).hasNeighbour(Vertex.LOWER)) {
-                    gc.setFill(getWeightColour(g, g.getVertex(vertexIndex).getWeight(Vertex.LOWER)));
-                    gc.fillRect(((2 * j + 1) * 0.5 * (POINT_SIZE - EDGE_THICKNESS) + j * (EDGE_LENGTH + EDGE_THICKNESS) + PADDING),
-                            ((i + 1) * POINT_SIZE + i * EDGE_LENGTH + PADDING),
-                            EDGE_THICKNESS,
-                            EDGE_LENGTH);
-                }
-            }
+        Graph g = drawnGraph;
+        int width = (int) Math.ceil(scrollPane.getViewportBounds().getWidth());
+        int height = (int) Math.ceil(scrollPane.getViewportBounds().getHeight());
+        if (width <= 0 || height <= 0) {
+            return;
         }
-
-        // enable vertex selection for shortest path finding
-        canvas.setOnMouseClicked(event -> {
-            double mouseX = event.getX();
-            double mouseY = event.getY();
-            Point2D mousePoint = new Point2D(mouseX, mouseY);
-
-            if (clickedNodes.size() == 0) {
-                // 1st click
-                for (int i = 0; i < g.getGraphSize(); i++) {
-                    Point2D vertexCenterPoint = vertexCoordinates.get(i);
-                    startVertex = i;
-                    if (pointDistance(mousePoint, vertexCenterPoint) <= (POINT_SIZE / 2)) {
-                        gc.setFill(FUCHSIA);
-                        gc.fillOval((vertexCenterPoint.getX() - (POINT_SIZE / 2)),
-                                (vertexCenterPoint.getY() - (POINT_SIZE / 2)),
-                                POINT_SIZE,
-                                POINT_SIZE);
-                        clickedNodes.add(vertexCenterPoint);
-                        break;
-                    }
-                }
-            } else if (clickedNodes.size() == 1) {
-                // 2nd click
-                for (int i = 0; i < g.getGraphSize(); i++) {
-                    Point2D vertexCenterPoint = vertexCoordinates.get(i);
-                    finishVertex = i;
-                    if (pointDistance(mousePoint, vertexCenterPoint) <= (POINT_SIZE / 2)) {
-                        if(clickedNodes.contains(vertexCenterPoint)) {
-                            // the same vertex clicked twice
-                            gc.setFill(BLACK);
-                            gc.fillOval((vertexCenterPoint.getX() - (POINT_SIZE / 2)),
-                                    (vertexCenterPoint.getY() - (POINT_SIZE / 2)),
-                                    POINT_SIZE,
-                                    POINT_SIZE);
-                            clickedNodes.clear();
-                            drawGraph(g);
-                            break;
-                        } else {
-                            // 2nd vertex different from the 1st one
-                            gc.setFill(FUCHSIA);
-                            gc.fillOval((vertexCenterPoint.getX() - (POINT_SIZE / 2)),
-                                    (vertexCenterPoint.getY() - (POINT_SIZE / 2)),
-                                    POINT_SIZE,
-                                    POINT_SIZE);
-                            clickedNodes.add(vertexCenterPoint);
-                            drawPath(g);
-                            break;
-                        }
-                    }
+        int offsetX = (int) Math.round(getScrollOffset(scrollPane.getHvalue(), scrollPane.getHmin(),
+                scrollPane.getHmax(), content.getPrefWidth() - width));
+        int offsetY = (int) Math.round(getScrollOffset(scrollPane.getVvalue(), scrollPane.getVmin(),
+                scrollPane.getVmax(), content.getPrefHeight() - height));
+        int [] selected = (selectedCount == 2) ? new int [] {startVertex, finishVertex}
+                : (selectedCount == 1) ? new int [] {startVertex} : new int [0];
+        int [] shownPath = path;
+        long generation = ++renderGeneration;
+
+        ForkJoinPool.commonPool().submit(() -> {
+            int [] pixels = new GraphRenderer(g, offsetX, offsetY, width, height).render(selected, shownPath);
+            Platform.runLater(() -> {
+                if (generation != renderGeneration) {
+                    // a newer picture is on its way
+                    return;
                 }
-            } else if (clickedNodes.size() == 2) {
-                // 3rd click
-                for (int i = 0; i < g.getGraphSize(); i++) {
-                    Point2D vertexCenterPoint = vertexCoordinates.get(i);
-                    startVertex = i;
-                    if (pointDistance(mousePoint, vertexCenterPoint) <= (POINT_SIZE / 2)) {
-                        if (clickedNodes.contains(vertexCenterPoint)) {
-                            // the same vertex clicked twice
-                            gc.setFill(BLACK);
-                            gc.fillOval((vertexCenterPoint.getX() - (POINT_SIZE / 2)),
-                                    (vertexCenterPoint.getY() - (POINT_SIZE / 2)),
-                                    POINT_SIZE,
-                                    POINT_SIZE);
-                            clickedNodes.remove(vertexCenterPoint);
-                            Point2D previouslyClicked = clickedNodes.get(0);
-                            gc.fillOval((previouslyClicked.getX() - (POINT_SIZE / 2)),
-                                    (previouslyClicked.getY() - (POINT_SIZE / 2)),
-                                    POINT_SIZE,
-                                    POINT_SIZE);
-                            clickedNodes.clear();
-                            drawGraph(g);
-                            break;
-                        } else {
-                            // 3rd vertex different from the 1st and 2nd one
-                            gc.setFill(BLACK);
-                            gc.fillOval((clickedNodes.get(0).getX() - (POINT_SIZE / 2)),
-                                    (clickedNodes.get(0).getY() - (POINT_SIZE / 2)),
-                                    POINT_SIZE,
-                                    POINT_SIZE);
-                            gc.fillOval((clickedNodes.get(1).getX() - (POINT_SIZE / 2)),
-                                    (clickedNodes.get(1).getY() - (POINT_SIZE / 2)),
-                                    POINT_SIZE,
-                                    POINT_SIZE);
-                            clickedNodes.clear();
-                            drawGraph(g);
-
-                            clickedNodes.add(vertexCenterPoint);
-                            gc.setFill(FUCHSIA);
-                            gc.fillOval((vertexCenterPoint.getX() - (POINT_SIZE / 2)),
-                                    (vertexCenterPoint.getY() - (POINT_SIZE / 2)),
-                                    POINT_SIZE,
-                                    POINT_SIZE);
-                            break;
-                        }
-                    }
+                if (image == null || image.getWidth() != width || image.getHeight() != height) {
+                    image = new WritableImage(width, height);
                 }
-            }
+                image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(),
+                        pixels, 0, width);
+                canvas.setWidth(width);
+                canvas.setHeight(height);
+                canvas.relocate(offsetX, offsetY);
+                gc.drawImage(image, 0, 0);
+            });
         });
     }
 
     /**
-     * Gets edge colour depending on the weight.
-     * @param g graph
-     * @param weight weight value
-     * @return colour value
+     * Calculates the scroll offset of the viewport from the position of a scroll bar.
+     * @param value position of the scroll bar
+     * @param min lowest position of the scroll bar
+     * @param max highest position of the scroll bar
+     * @param range length of the content not fitting in the viewport
+     * @return offset in pixels
      */
-    private Color getWeightColour(Graph g, double weight) {
-        double hue = (BLUE - RED) * (weight - g.getWeightLower()) / (g.getWeightUpper() - g.getWeightLower()) + RED;
-        return Color.hsb(hue, 1.0, 1.0);
+    private double getScrollOffset(double value, double min, double max, double range) {
+        if (range <= 0 || max <= min) {
+            return 0;
+        }
+        return (value - min) / (max - min) * range;
     }
 
     /**
-     * Calculates the Euclidean distance between 2 points.
-     * @param p1 first point
-     * @param p2 second point
-     * @return distance between the 2 points
+     * Finds the vertex under a point of the content of the ScrollPane.
+     * @param x x coordinate of the point
+     * @param y y coordinate of the point
+     * @return index of the vertex, (-1) if the point doesn't lie on a vertex
      */
-    private double pointDistance(Point2D p1, Point2D p2) {
-        double x1 = p1.getX();
-        double y1 = p1.getY();
-        double x2 = p2.getX();
-        double y2 = p2.getY();
+    private int findVertex(double x, double y) {
+        int column = (int) Math.floor((x - GraphRenderer.PADDING) / GraphRenderer.CELL_SIZE);
+        int row = (int) Math.floor((y - GraphRenderer.PADDING) / GraphRenderer.CELL_SIZE);
+        if (row < 0 || row >= drawnGraph.getRows() || column < 0 || column >= drawnGraph.getColumns()) {
+            return -1;
+        }
+        double dx = x - GraphRenderer.getCentre(column);
+        double dy = y - GraphRenderer.getCentre(row);
+        double radius = GraphRenderer.POINT_SIZE / 2.0;
+        if (dx * dx + dy * dy > radius * radius) {
+            return -1;
+        }
+        return row * drawnGraph.getColumns() + column;
+    }
+
+    /**
+     * Checks if a vertex is selected as the start or finish of a path.
+     * @param vertex index of the vertex
+     * @return true or false
+     */
+    private boolean isSelected(int vertex) {
+        return (selectedCount >= 1 && vertex == startVertex) || (selectedCount == 2 && vertex == finishVertex);
+    }
 
-        return Math.sqrt((x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1));
+    /**
+     * Selects a clicked vertex: the 1st and 2nd click choose the start and finish vertex and draw the path,
+     * the 3rd one starts a new selection, clicking a selected vertex again clears the selection.
+     * @param x x coordinate of the click on the content of the ScrollPane
+     * @param y y coordinate of the click on the content of the ScrollPane
+     */
+    private void selectVertex(double x, double y) {
+        if (drawnGraph == null) {
+            return;
+        }
+        int vertex = findVertex(x, y);
+        if (vertex == -1) {
+            return;
+        }
+        if (isSelected(vertex)) {
+            // the same vertex clicked twice
+            selectedCount = 0;
+            path = null;
+            redraw();
+        } else if (selectedCount == 1) {
+            // 2nd vertex different from the 1st one
+            finishVertex = vertex;
+            selectedCount = 2;
+            redraw();
+            drawPath(drawnGraph);
+        } else {
+            // 1st vertex, or 3rd vertex different from the 1st and 2nd one
+            startVertex = vertex;
+            selectedCount = 1;
+            path = null;
+            redraw();
+        }
     }
 
     /**
@@ -484,14 +512,20 @@ public class Controllers implements Initializable {
      * @param g graph containing the 2 points
      */
     private void drawPath(Graph g) {
-        Path dijkstry = new Path(g);
-        ArrayList<Integer> path = dijkstry.findPath(g, startVertex, finishVertex);
+        boolean useHierarchy = hierarchy != null && hierarchy.isCurrent(g);
+        int [] path = null;
+        // vertices of different segments have no path, no search needed
+        if (g.getComponents().sameComponent(startVertex, finishVertex)) {
+            path = useHierarchy ? hierarchy.findPath(startVertex, finishVertex)
+                    : treeCache.findPath(g, startVertex, finishVertex);
+        }
         if (path != null) {
             System.out.print("Path between " + startVertex + " and " + finishVertex + ": ");
-            for (int i = (path.size() - 1); i > 0; i--) {
-                System.out.print(path.get(i) + "-");
+            for (int i = (path.length - 1); i > 0; i--) {
+                System.out.print(path[i] + "-");
             }
-            System.out.println(path.get(0) + ".");
+            System.out.println(path[0] + ".");
+            System.out.println(useHierarchy ? hierarchy : treeCache);
         } else {
             System.out.println("Path between " + startVertex + " and " + finishVertex + " doesn't exist.");
             Alert popUp = new Alert(Alert.AlertType.INFORMATION);
@@ -502,15 +536,8 @@ public class Controllers implements Initializable {
             return;
         }
 
-        gc.setStroke(FUCHSIA);
-        gc.setLineWidth(EDGE_THICKNESS);
-        for(int i = 0; i < (path.size() - 1); i++) {
-            double startX = vertexCoordinates.get(path.get(i)).getX();
-            double startY = vertexCoordinates.get(path.get(i)).getY();
-            double finishX = vertexCoordinates.get(path.get(i + 1)).getX();
-            double finishY = vertexCoordinates.get(path.get(i + 1)).getY();
-            gc.strokeLine(startX, startY, finishX, finishY);
-        }
+        this.path = path;
+        redraw();
     }
 
     /**
@@ -0,0 +1,298 @@
+package com.example.appgraph;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel single-source shortest paths with the delta-stepping algorithm.
+ * Vertices are kept in buckets of distances of width delta. The lowest bucket is settled in phases:
+ * light edges (weight up to delta) of its vertices are relaxed in parallel until the bucket stays empty,
+ * then heavy edges of all vertices removed from it are relaxed in parallel.
+ * Distances are lowered with compare-and-set, predecessors are chosen afterwards from the final distances.
+ */
+class DeltaStepping {
+    /**
+     * Handle for atomic updates of the distances.
+     */
+    private static final VarHandle DISTANCE = MethodHandles.arrayElementVarHandle(double [].class);
+
+    /**
+     * Number of vertices relaxed by 1 task.
+     */
+    private static final int CHUNK_SIZE = 1 << 10;
+
+    /**
+     * Growable list of vertices.
+     */
+    private static class IntList {
+        /**
+         * Elements of the list.
+         */
+        int [] data = new int [16];
+
+        /**
+         * Number of elements.
+         */
+        int size;
+
+        /**
+         * Appends a vertex.
+         * @param vertex appended vertex
+         */
+        void add(int vertex) {
+            if(size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = vertex;
+        }
+    }
+
+    /**
+     * Graph in which paths are searched.
+     */
+    private final Graph g;
+
+    /**
+     * Width of a bucket.
+     */
+    private final double delta;
+
+    /**
+     * Pool running the relaxation tasks.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Circular array of buckets (vertices may be listed more than once or in an outdated bucket).
+     */
+    private IntList [] buckets;
+
+    /**
+     * Number (plus 1) of the bucket each vertex was last added to.
+     */
+    private int [] listedIn;
+
+    /**
+     * Number (plus 1) of the bucket from which each vertex was last removed.
+     */
+    private int [] removedFrom;
+
+    /**
+     * Array of distances to each vertex from the start vertex.
+     */
+    private double [] distance;
+
+    /**
+     * Creates a search with delta chosen from the weight range of the graph.
+     * @param g graph in which paths are searched
+     * @param pool pool running the relaxation tasks
+     */
+    DeltaStepping(Graph g, ForkJoinPool pool) {
+        this.g = g;
+        this.pool = pool;
+        // wide buckets give more vertices per phase, narrow ones fewer repeated relaxations
+        this.delta = Math.max(g.getWeightLower(), g.getWeightUpper() / 2);
+    }
+
+    /**
+     * Checks if the weight range of a graph allows the search (positive, finite weights).
+     * @param g graph
+     * @return true or false
+     */
+    static boolean canSearch(Graph g) {
+        return g.getWeightLower() > 0 && g.getWeightUpper() >= g.getWeightLower()
+                && !Double.isInfinite(g.getWeightUpper());
+    }
+
+    /**
+     * Computes the shortest paths from a vertex to all vertices.
+     * @param startVertex vertex from which the paths start
+     * @param distance distance array filled with infinity
+     * @param predecessor predecessor array filled with (-1)
+     * @return number of reached vertices
+     */
+    int run(int startVertex, double [] distance, int [] predecessor) {
+        int size = g.getGraphSize();
+        this.distance = distance;
+        buckets = new IntList [(int) Math.ceil(g.getWeightUpper() / delta) + 2];
+        for(int i = 0; i < buckets.length; i++) {
+            buckets[i] = new IntList();
+        }
+        listedIn = new int [size];
+        removedFrom = new int [size];
+
+        distance[startVertex] = 0.0;
+        add(startVertex);
+        int listed = 1;
+        long current = 0;
+        IntList removed = new IntList();
+        while(listed > 0) {
+            IntList bucket = buckets[(int) (current % buckets.length)];
+            removed.size = 0;
+            while(bucket.size > 0) {
+                // take the current contents of the bucket, skipping outdated entries
+                IntList frontier = new IntList();
+                for(int i = 0; i < bucket.size; i++) {
+                    int vertex = bucket.data[i];
+                    if(getBucket(distance[vertex]) == current && listedIn[vertex] == current + 1) {
+                        listedIn[vertex] = 0;
+                        frontier.add(vertex);
+                        if(removedFrom[vertex] != current + 1) {
+                            removedFrom[vertex] = (int) (current + 1);
+                            removed.add(vertex);
+                        }
+                    }
+                }
+                listed -= bucket.size;
+                bucket.size = 0;
+                listed += addAll(relax(frontier, true));
+            }
+            listed += addAll(relax(removed, false));
+            current++;
+        }
+
+        linkPredecessors(startVertex, predecessor);
+        int reached = 0;
+        for(int i = 0; i < size; i++) {
+            if(distance[i] != Double.POSITIVE_INFINITY) {
+                reached++;
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Calculates the bucket of a distance.
+     * @param d distance
+     * @return number of the bucket (not wrapped around)
+     */
+    private long getBucket(double d) {
+        return (long) (d / delta);
+    }
+
+    /**
+     * Adds a vertex to the bucket of its distance unless it's already there.
+     * @param vertex index of the vertex
+     * @return 1 if added, 0 otherwise
+     */
+    private int add(int vertex) {
+        long number = getBucket(distance[vertex]);
+        if(listedIn[vertex] == number + 1) {
+            return 0;
+        }
+        listedIn[vertex] = (int) (number + 1);
+        buckets[(int) (number % buckets.length)].add(vertex);
+        return 1;
+    }
+
+    /**
+     * Adds the vertices with lowered distances to their buckets.
+     * @param lowered lists of vertices with lowered distances
+     * @return number of added vertices
+     */
+    private int addAll(List<IntList> lowered) {
+        int added = 0;
+        for(IntList list : lowered) {
+            for(int i = 0; i < list.size; i++) {
+                added += add(list.data[i]);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Relaxes the light or heavy edges of vertices, in parallel if there are many of them.
+     * @param vertices relaxed vertices
+     * @param light true to relax edges of weight up to delta, false to relax heavier edges
+     * @return lists of vertices with lowered distances
+     */
+    private List<IntList> relax(IntList vertices, boolean light) {
+        List<IntList> lowered = new ArrayList<>();
+        if(vertices.size <= CHUNK_SIZE) {
+            lowered.add(relax(vertices, 0, vertices.size, light));
+            return lowered;
+        }
+        List<ForkJoinTask<IntList>> tasks = new ArrayList<>();
+        for(int first = 0; first < vertices.size; first += CHUNK_SIZE) {
+            int from = first;
+            int to = Math.min(first + CHUNK_SIZE, vertices.size);
+            tasks.add(pool.submit(() -> relax(vertices, from, to, light)));
+        }
+        for(ForkJoinTask<IntList> task : tasks) {
+            lowered.add(task.join());
+        }
+        return lowered;
+    }
+
+    /**
+     * Relaxes the light or heavy edges of a range of vertices.
+     * @param vertices relaxed vertices
+     * @param from index of the 1st relaxed vertex in the list
+     * @param to index of the vertex after the last relaxed one
+     * @param light true to relax edges of weight up to delta, false to relax heavier edges
+     * @return list of vertices with lowered distances
+     */
+    private IntList relax(IntList vertices, int from, int to, boolean light) {
+        IntList lowered = new IntList();
+        for(int j = from; j < to; j++) {
+            int vertex = vertices.data[j];
+            double d = (double) DISTANCE.getVolatile(distance, vertex);
+            for(int i = 0; i < 4; i++) {
+                int neighbour = g.getNeighbour(vertex, i);
+                if(neighbour != -1) {
+                    double weight = g.getWeight(vertex, i);
+                    if((weight <= delta) == light) {
+                        double newDistance = d + weight;
+                        double old = (double) DISTANCE.getVolatile(distance, neighbour);
+                        while(newDistance < old) {
+                            if(DISTANCE.compareAndSet(distance, neighbour, old, newDistance)) {
+                                lowered.add(neighbour);
+                                break;
+                            }
+                            old = (double) DISTANCE.getVolatile(distance, neighbour);
+                        }
+                    }
+                }
+            }
+        }
+        return lowered;
+    }
+
+    /**
+     * Fills the predecessor array from the final distances: the predecessor of a vertex is its 1st neighbour
+     * (in the order of positions) lying on a shortest path to it.
+     * @param startVertex vertex from which the paths start
+     * @param predecessor predecessor array filled with (-1)
+     */
+    private void linkPredecessors(int startVertex, int [] predecessor) {
+        int size = g.getGraphSize();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        int chunk = Math.max(CHUNK_SIZE, size / (pool.getParallelism() * 4));
+        for(int first = 0; first < size; first += chunk) {
+            int from = first;
+            int to = (int) Math.min((long) first + chunk, size);
+            tasks.add(pool.submit(() -> {
+                for(int vertex = from; vertex < to; vertex++) {
+                    if(vertex == startVertex || distance[vertex] == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    for(int i = 0; i < 4; i++) {
+                        int neighbour = g.getNeighbour(vertex, i);
+                        if(neighbour != -1 && distance[neighbour] + g.getWeight(vertex, i) == distance[vertex]) {
+                            predecessor[vertex] = neighbour;
+                            break;
+                        }
+                    }
+                }
+            }));
+        }
+        for(ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+}
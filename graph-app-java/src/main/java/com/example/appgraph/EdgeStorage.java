@@ -0,0 +1,48 @@
+package com.example.appgraph;
+
+/**
+ * Interface for the storage of grid edges, each undirected edge stored once by the vertex on its left or upper end.
+ * Different edges may be added and removed concurrently (e.g. by parallel file import).
+ */
+public interface EdgeStorage {
+    /**
+     * 0 -> RIGHT edge of a vertex (between v and v + 1).
+     */
+    int RIGHT = 0;
+
+    /**
+     * 1 -> LOWER edge of a vertex (between v and v + columns).
+     */
+    int LOWER = 1;
+
+    /**
+     * Checks if an edge is present.
+     * @param vertex index of the vertex owning the edge
+     * @param edge RIGHT or LOWER
+     * @return true or false
+     */
+    boolean hasEdge(int vertex, int edge);
+
+    /**
+     * Gets the weight of an edge.
+     * @param vertex index of the vertex owning the edge
+     * @param edge RIGHT or LOWER
+     * @return weight of the edge (undefined if the edge isn't present)
+     */
+    double getWeight(int vertex, int edge);
+
+    /**
+     * Adds an edge or changes its weight.
+     * @param vertex index of the vertex owning the edge
+     * @param edge RIGHT or LOWER
+     * @param weight weight of the edge
+     */
+    void setEdge(int vertex, int edge, double weight);
+
+    /**
+     * Removes an edge.
+     * @param vertex index of the vertex owning the edge
+     * @param edge RIGHT or LOWER
+     */
+    void removeEdge(int vertex, int edge);
+}
@@ -1,5 +1,7 @@
 package com.example.appgraph;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 
 /**
@@ -49,16 +51,44 @@ public interface GeneratedGraph {
     void generateGraph();
 
     /**
-     * Splits a connected graph into disconnected segments.
+     * Generates a random connected graph of set dimension and weight range from a seed
+     * (the same seed gives the same graph).
+     * @param seed seed of the graph
+     */
+    void generateGraph(long seed);
+
+    /**
+     * Splits the graph into 1 more segment.
      */
     void splitGraph();
 
+    /**
+     * Splits the graph into a given number of disconnected segments.
+     * @param segments number of segments
+     */
+    void splitGraph(int segments);
+
     /**
      * Writes the graph into a file.
      * @param writer provided PrintWriter
      */
     void writeGraph(PrintWriter writer);
 
+    /**
+     * Writes the graph into a text file.
+     * @param file text graph file
+     * @param precision number of decimal places of the weights, TextGraphWriter.FULL_PRECISION to write them exactly
+     * @throws IOException in case of a writing error
+     */
+    void writeGraph(File file, int precision) throws IOException;
+
+    /**
+     * Writes the graph into a binary file.
+     * @param file binary graph file
+     * @throws IOException in case of a writing error
+     */
+    void writeBinaryGraph(File file) throws IOException;
+
     /**
      * Prints the graph contents to standard output.
      */
@@ -1,16 +1,39 @@
 package com.example.appgraph;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class containing 1 graph.
  */
 public class Graph implements GeneratedGraph, ReadGraph {
+    /**
+     * Maximum number of vertices in a graph (vertex indexes and per-vertex arrays are int-indexed).
+     */
+    public static final int MAX_GRAPH_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Number of vertices above which the edges are stored outside the Java heap (large-graph mode).
+     * A large graph takes about 16.25 bytes of direct memory per vertex (-XX:MaxDirectMemorySize),
+     * e.g. 1.6 GB for 100M vertices, on top of the int and double arrays used by Path and Connectivity.
+     */
+    public static final int LARGE_GRAPH_SIZE = 1 << 24;
+
+    /**
+     * Number of vertices from which graphs are generated in parallel.
+     */
+    private static final int PARALLEL_GENERATE_SIZE = 1 << 20;
+
     /**
      * Number of rows in the graph.
      */
@@ -22,9 +45,9 @@ public class Graph implements GeneratedGraph, ReadGraph {
     private int columns;
 
     /**
-     * Array containing all vertices.
+     * Storage of all edges (only the RIGHT and LOWER edge of each vertex, neighbours derived from the grid).
      */
-    private Vertex [] v;
+    private EdgeStorage edges;
 
     /**
      * Lower end of the range of possible weight values.
@@ -37,10 +60,31 @@ public class Graph implements GeneratedGraph, ReadGraph {
     private double weightUpper;
 
     /**
-     * Random seed for random weight and vertex generation.
+     * Random number generator of the seeds of generated graphs and of random vertices.
      */
     private final Random r = new Random();
 
+    /**
+     * Seed the graph was generated from.
+     */
+    private long seed;
+
+    /**
+     * Engine for shortest path queries (created on first use, dropped when the edge storage is replaced).
+     */
+    private PathEngine pathEngine;
+
+    /**
+     * Connected components of the graph (computed on first use, recomputed when the graph has changed since).
+     */
+    private Components components;
+
+    /**
+     * Number of changes of the graph, increased by every change of its dimensions, edges or weight range
+     * (lets the results computed for the graph be recognised as outdated).
+     */
+    private final AtomicLong version = new AtomicLong();
+
     /**
      * Creates an empty graph of given dimensions and weight range (to be generated randomly).
      * @param rows number of rows in the graph
@@ -50,13 +94,38 @@ public class Graph implements GeneratedGraph, ReadGraph {
      */
     public Graph(int rows, int columns, double w1, double w2) {
         // generated randomly
+        if(!isValidSize(rows, columns)) {
+            throw new IllegalArgumentException("Graph dimensions out of range.");
+        }
         this.rows = rows;
         this.columns = columns;
         this.weightLower = w1;
         this.weightUpper = w2;
-        v = new Vertex[rows * columns];
-        for(int i = 0; i < getGraphSize(); i++)
-            v[i] = new Vertex();
+        allocate();
+    }
+
+    /**
+     * Creates an implicit graph generated from a seed: the weights are computed from the seed when needed
+     * and only the edges changed later (e.g. cut by splitGraph) are stored, so even grids of billions of vertices
+     * take little memory. The graph is the same as one generated with generateGraph(seed).
+     * @param rows number of rows in the graph
+     * @param columns number of columns in the graph
+     * @param w1 lower end of the weight range
+     * @param w2 upper end of the weight range
+     * @param seed seed of the graph
+     */
+    public Graph(int rows, int columns, double w1, double w2, long seed) {
+        if(!isValidSize(rows, columns)) {
+            throw new IllegalArgumentException("Graph dimensions out of range.");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.weightLower = w1;
+        this.weightUpper = w2;
+        this.seed = seed;
+        r.setSeed(seed);
+        edges = new ImplicitEdgeStorage(seed, rows, columns, w1, w2);
+        modified();
     }
 
     /**
@@ -68,6 +137,129 @@ public class Graph implements GeneratedGraph, ReadGraph {
         weightUpper = -1;
     }
 
+    /**
+     * Checks if a graph of given dimensions can be created (without overflowing the number of vertices).
+     * @param rows number of rows in the graph
+     * @param columns number of columns in the graph
+     * @return true or false
+     */
+    public static boolean isValidSize(long rows, long columns) {
+        return rows > 0 && columns > 0 && rows * columns <= MAX_GRAPH_SIZE;
+    }
+
+    /**
+     * Sets the dimensions of a graph read from a file and allocates an empty edge storage.
+     * @param rows number of rows in the graph
+     * @param columns number of columns in the graph
+     */
+    void setDimensions(int rows, int columns) {
+        if(!isValidSize(rows, columns)) {
+            throw new IllegalArgumentException("Graph dimensions out of range.");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        allocate();
+    }
+
+    /**
+     * Sets the weight range of a graph read from a file.
+     * @param w1 lower end of the weight range
+     * @param w2 upper end of the weight range
+     */
+    void setWeightRange(double w1, double w2) {
+        weightLower = w1;
+        weightUpper = w2;
+        modified();
+    }
+
+    /**
+     * Checks if the graph keeps its edges outside the Java heap.
+     * @return true or false
+     */
+    public boolean isLarge() {
+        return getGraphSize() > LARGE_GRAPH_SIZE;
+    }
+
+    /**
+     * Checks if the graph computes its weights from its seed instead of storing them.
+     * @return true or false
+     */
+    public boolean isImplicit() {
+        return edges instanceof ImplicitEdgeStorage;
+    }
+
+    /**
+     * Gets the storage of the edges.
+     * @return edge storage
+     */
+    EdgeStorage getEdgeStorage() {
+        return edges;
+    }
+
+    /**
+     * Allocates an empty edge storage for the current dimensions.
+     */
+    private void allocate() {
+        pathEngine = null;
+        modified();
+        edges = newEdgeStorage(rows * columns);
+    }
+
+    /**
+     * Creates an empty edge storage, off the heap above LARGE_GRAPH_SIZE vertices
+     * (static, so the constructors don't call overridable methods).
+     * @param size number of vertices in the graph
+     * @return edge storage
+     */
+    private static EdgeStorage newEdgeStorage(int size) {
+        return (size > LARGE_GRAPH_SIZE) ? new BufferEdgeStorage(size) : new HeapEdgeStorage(size);
+    }
+
+    /**
+     * Gets the version of the graph: the number of changes made to it so far.
+     * @return version of the graph
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Marks the graph as changed.
+     */
+    private void modified() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Gets the seed the graph was generated from (reproduces the graph with generateGraph(long)).
+     * @return seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the engine for shortest path queries in the graph (reused by all queries).
+     * @return path engine
+     */
+    public PathEngine getPathEngine() {
+        if(pathEngine == null) {
+            pathEngine = new PathEngine(this);
+        }
+        return pathEngine;
+    }
+
+    /**
+     * Gets the connected components of the graph, labelling them again only if the graph has changed.
+     * @return components of the graph
+     */
+    public Components getComponents() {
+        if(components == null || !components.isCurrent(this)) {
+            components = Components.compute(this);
+        }
+        return components;
+    }
+
     /**
      * Calculates the number of vertices in the graph.
      * @return number of vertices
@@ -96,11 +288,29 @@ public class Graph implements GeneratedGraph, ReadGraph {
     }
 
     /**
-     * Generates a random weight in a set range.
+     * Generates the random weight of an edge in a set range.
+     * @param seed seed of the graph
+     * @param edge index of the edge (vertex * 2 + stored edge)
+     * @param w1 lower end of the weight range
+     * @param w2 upper end of the weight range
      * @return weight value
      */
-    private double getRandomWeight() {
-        return weightLower + (weightUpper - weightLower) * r.nextDouble();
+    static double getRandomWeight(long seed, long edge, double w1, double w2) {
+        return w1 + (w2 - w1) * ((mix(seed, edge) >>> 11) * 0x1p-53);
+    }
+
+    /**
+     * Derives a random number from a seed and an index with the SplitMix64 function
+     * (counter-based: the numbers of different indices can be generated in any order).
+     * @param seed seed
+     * @param index index of the number
+     * @return random 64-bit number
+     */
+    static long mix(long seed, long index) {
+        long z = seed + (index + 1) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
     }
 
     /**
@@ -150,104 +360,310 @@ public class Graph implements GeneratedGraph, ReadGraph {
     /**
      * Gets the vertex of a given index.
      * @param index index of the vertex
-     * @return vertex object
+     * @return vertex object (a view of the graph's edge storage)
      */
     @Override
     public Vertex getVertex(int index) {
-        return v[index];
+        return new Vertex(this, index);
+    }
+
+    /**
+     * Finds the vertex storing the edge at a given position (the upper or left end of the edge).
+     * @param vertex index of the vertex
+     * @param position position of the edge in relation to the vertex
+     * @return index of the vertex storing the edge, (-1) if the position lies outside the grid
+     */
+    private int getEdgeOwner(int vertex, int position) {
+        switch(position) {
+            case Vertex.UPPER:
+                return (getCurrentRow(vertex) != 0) ? (vertex - columns) : -1;
+            case Vertex.LEFT:
+                return (getCurrentColumn(vertex) != 0) ? (vertex - 1) : -1;
+            case Vertex.RIGHT:
+                return (getCurrentColumn(vertex) != (columns - 1)) ? vertex : -1;
+            case Vertex.LOWER:
+                return (getCurrentRow(vertex) != (rows - 1)) ? vertex : -1;
+            default:
+                throw new IllegalArgumentException("Incorrect neighbour position.");
+        }
+    }
+
+    /**
+     * Maps a position to the edge kept in the edge storage.
+     * @param position position of the edge in relation to the vertex
+     * @return EdgeStorage.RIGHT or EdgeStorage.LOWER
+     */
+    private static int getStoredEdge(int position) {
+        return (position == Vertex.LEFT || position == Vertex.RIGHT) ? EdgeStorage.RIGHT : EdgeStorage.LOWER;
+    }
+
+    /**
+     * Calculates the index of the grid cell at a given position (regardless of the edges present).
+     * @param vertex index of the vertex
+     * @param position position of the neighbour in relation to the vertex
+     * @return index of the neighbouring cell
+     */
+    private int getAdjacent(int vertex, int position) {
+        switch(position) {
+            case Vertex.UPPER:
+                return vertex - columns;
+            case Vertex.LEFT:
+                return vertex - 1;
+            case Vertex.RIGHT:
+                return vertex + 1;
+            default:
+                return vertex + columns;
+        }
+    }
+
+    /**
+     * Adds a neighbour of a given index and edge weight to a vertex (and the vertex to the neighbour).
+     * @param vertex index of the vertex
+     * @param position position of the neighbour in relation to the vertex
+     * @param nIndex index of the neighbour
+     * @param w weight of the edge between the vertex and the neighbour
+     */
+    public void setNeighbour(int vertex, int position, int nIndex, double w) {
+        putNeighbour(vertex, position, nIndex, w);
+        modified();
+    }
+
+    /**
+     * Adds a neighbour to a vertex without marking the graph as changed
+     * (used by the readers, which may add edges from many threads and mark the graph once at the end).
+     * @param vertex index of the vertex
+     * @param position position of the neighbour in relation to the vertex
+     * @param nIndex index of the neighbour
+     * @param w weight of the edge between the vertex and the neighbour
+     */
+    private void putNeighbour(int vertex, int position, int nIndex, double w) {
+        int owner = getEdgeOwner(vertex, position);
+        if(owner == -1 || nIndex != getAdjacent(vertex, position)) {
+            throw new IllegalArgumentException("Neighbour outside of the grid.");
+        }
+        edges.setEdge(owner, getStoredEdge(position), w);
+    }
+
+    /**
+     * Removes a neighbour of a vertex (and the vertex from the neighbour).
+     * @param vertex index of the vertex
+     * @param position position of the neighbour in relation to the vertex
+     */
+    public void removeNeighbour(int vertex, int position) {
+        int owner = getEdgeOwner(vertex, position);
+        if(owner != -1) {
+            edges.removeEdge(owner, getStoredEdge(position));
+            modified();
+        }
+    }
+
+    /**
+     * Gets a neighbour of a vertex.
+     * @param vertex index of the vertex
+     * @param position position of the neighbour in relation to the vertex
+     * @return index of the neighbour, (-1) if not present
+     */
+    public int getNeighbour(int vertex, int position) {
+        return hasNeighbour(vertex, position) ? getAdjacent(vertex, position) : -1;
+    }
+
+    /**
+     * Checks if a vertex has a neighbour.
+     * @param vertex index of the vertex
+     * @param position position of the neighbour in relation to the vertex
+     * @return true or false
+     */
+    public boolean hasNeighbour(int vertex, int position) {
+        int owner = getEdgeOwner(vertex, position);
+        return (owner != -1) && edges.hasEdge(owner, getStoredEdge(position));
+    }
+
+    /**
+     * Counts the number of neighbours of a vertex.
+     * @param vertex index of the vertex
+     * @return number of neighbours (range: 0-4)
+     */
+    public int countNeighbours(int vertex) {
+        int count = 0;
+        for(int i = 0; i < 4; i++) {
+            if(hasNeighbour(vertex, i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the edge weight of an edge of a vertex.
+     * @param vertex index of the vertex
+     * @param position position of the edge in relation to the vertex
+     * @return weight of the edge, (-1) if not present
+     */
+    public double getWeight(int vertex, int position) {
+        int owner = getEdgeOwner(vertex, position);
+        int edge = getStoredEdge(position);
+        if(owner == -1 || !edges.hasEdge(owner, edge)) {
+            return -1;
+        }
+        return edges.getWeight(owner, edge);
     }
 
     /**
      * Calculates and sets the weight range of a graph read from a file.
      */
     private void setWeightRange() {
-        for(Vertex current : v) {
-            for(int j = 0; j < 4; j++) {
-                double w = current.getWeight(j);
-                if(current.hasNeighbour(j) && (w < weightLower)) {
-                    weightLower = current.getWeight(j);
-                }
-                if(w > weightUpper) {
-                    weightUpper = current.getWeight(j);
+        for(int i = 0; i < getGraphSize(); i++) {
+            for(int j = EdgeStorage.RIGHT; j <= EdgeStorage.LOWER; j++) {
+                if(edges.hasEdge(i, j)) {
+                    double w = edges.getWeight(i, j);
+                    if(w < weightLower) {
+                        weightLower = w;
+                    }
+                    if(w > weightUpper) {
+                        weightUpper = w;
+                    }
                 }
             }
         }
+        modified();
     }
 
     /**
-     * Generates a random connected graph of set dimension and weight range.
+     * Generates a random connected graph of set dimension and weight range, from a random seed.
      */
     @Override
     public void generateGraph() {
-        double w;
-        for(int i = 0; i < getGraphSize(); i++) {
-            if((getCurrentRow(i) != 0) && !(v[i].hasNeighbour(Vertex.UPPER))) {
-                w = getRandomWeight();
-                v[i].setNeighbour(Vertex.UPPER, i - columns, w);
-                v[i - columns].setNeighbour(Vertex.LOWER, i, w);
+        generateGraph(r.nextLong());
+    }
+
+    /**
+     * Generates a random connected graph of set dimension and weight range from a seed.
+     * The weight of each edge depends only on the seed and the index of the edge, so large graphs are filled
+     * in parallel in blocks of rows and the graph is the same whatever the number of threads.
+     * The random vertices chosen later (by splitGraph) follow from the seed too.
+     * @param seed seed of the graph
+     */
+    @Override
+    public void generateGraph(long seed) {
+        if(getGraphSize() >= PARALLEL_GENERATE_SIZE && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            generateGraph(seed, ForkJoinPool.commonPool());
+        } else {
+            generateGraph(seed, null);
+        }
+    }
+
+    /**
+     * Generates a random connected graph from a seed, in blocks of rows on a pool
+     * (an implicit graph only takes the new seed).
+     * @param seed seed of the graph
+     * @param pool pool running the blocks (null to generate the graph in the calling thread)
+     */
+    void generateGraph(long seed, ForkJoinPool pool) {
+        this.seed = seed;
+        r.setSeed(seed);
+        if(isImplicit()) {
+            // nothing to fill, the weights follow from the seed
+            edges = new ImplicitEdgeStorage(seed, rows, columns, weightLower, weightUpper);
+        } else if(pool != null) {
+            int blocks = 4 * pool.getParallelism();
+            int blockRows = (rows + blocks - 1) / blocks;
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for(int firstRow = 0; firstRow < rows; firstRow += blockRows) {
+                int from = firstRow * columns;
+                int to = Math.min(rows, firstRow + blockRows) * columns;
+                tasks.add(pool.submit(() -> generateEdges(seed, from, to)));
             }
-            if((getCurrentColumn(i) != 0) && !(v[i].hasNeighbour(Vertex.LEFT))) {
-                w = getRandomWeight();
-                v[i].setNeighbour(Vertex.LEFT, i - 1, w);
-                v[i - 1].setNeighbour(Vertex.RIGHT, i, w);
+            for(ForkJoinTask<?> task : tasks) {
+                task.join();
             }
-            if((getCurrentColumn(i) != (columns - 1)) && !(v[i].hasNeighbour(Vertex.RIGHT))) {
-                w = getRandomWeight();
-                v[i].setNeighbour(Vertex.RIGHT, i + 1, w);
-                v[i + 1].setNeighbour(Vertex.LEFT, i, w);
+        } else {
+            generateEdges(seed, 0, getGraphSize());
+        }
+        modified();
+    }
+
+    /**
+     * Sets random weights of the edges of a range of vertices.
+     * @param seed seed of the graph
+     * @param from 1st vertex of the range
+     * @param to vertex after the last one of the range
+     */
+    private void generateEdges(long seed, int from, int to) {
+        for(int i = from; i < to; i++) {
+            if(getCurrentColumn(i) != (columns - 1)) {
+                edges.setEdge(i, EdgeStorage.RIGHT, getRandomWeight(seed, 2L * i + EdgeStorage.RIGHT, weightLower, weightUpper));
             }
-            if((getCurrentRow(i) != (rows - 1)) && !(v[i].hasNeighbour(Vertex.LOWER))) {
-                w = getRandomWeight();
-                v[i].setNeighbour(Vertex.LOWER, i + columns, w);
-                v[i + columns].setNeighbour(Vertex.UPPER, i, w);
+            if(getCurrentRow(i) != (rows - 1)) {
+                edges.setEdge(i, EdgeStorage.LOWER, getRandomWeight(seed, 2L * i + EdgeStorage.LOWER, weightLower, weightUpper));
             }
         }
     }
 
     /**
-     * Splits a connected graph into disconnected segments.
+     * Splits the graph into 1 more segment (if some segment has more than 1 vertex).
      */
     @Override
     public void splitGraph() {
-        int startVertex = 0, finishVertex = 0;
-        int countEdges;
-        boolean isConnected = false;
-
-        // pick 2 random connected vertices with 3 edges that aren't in the same row or column
-        while(!isConnected) {
-            do {
-                startVertex = getRandomVertex();
-                if((countEdges = v[startVertex].countNeighbours()) != 3) {
-                    continue;
-                }
-
-                finishVertex = getRandomVertex();
-                if((countEdges = v[finishVertex].countNeighbours()) != 3) {
-                    continue;
-                }
-            } while (countEdges != 3 ||
-                    getCurrentRow(startVertex) == getCurrentRow(finishVertex)
-                    || getCurrentColumn(startVertex) == getCurrentColumn(finishVertex));
+        splitGraph(Math.min(getComponents().getCount() + 1, getGraphSize()));
+    }
 
-            Connectivity bfs = new Connectivity(this);
-            isConnected = bfs.isConnected(this, startVertex, finishVertex);
+    /**
+     * Splits the graph into a given number of disconnected segments in 1 pass.
+     * Every existing segment gets its lowest vertex as a seed, the remaining seeds are random vertices,
+     * then a BFS from all the seeds at once gives each vertex the region of its closest seed
+     * and the edges between different regions are cut. Every region is connected by its BFS tree,
+     * so the graph ends up with exactly 1 segment per seed.
+     * @param segments number of segments (nothing is done if the graph already has that many)
+     */
+    @Override
+    public void splitGraph(int segments) {
+        int size = getGraphSize();
+        if(segments <= 0 || segments > size) {
+            throw new IllegalArgumentException("Number of segments out of range.");
+        }
+        Components labels = getComponents();
+        if(segments <= labels.getCount()) {
+            return;
+        }
+        int [] region = new int [size];
+        Arrays.fill(region, -1);
+        int [] queue = new int [size];
+        int tail = 0;
+        int seeds = 0;
+        for(int vertex = 0; vertex < size; vertex++) {
+            if(labels.getLabel(vertex) == seeds) {
+                region[vertex] = seeds++;
+                queue[tail++] = vertex;
+            }
+        }
+        while(seeds < segments) {
+            int vertex = getRandomVertex();
+            if(region[vertex] == -1) {
+                region[vertex] = seeds++;
+                queue[tail++] = vertex;
+            }
         }
 
-        // find the shortest path between the 2 vertices
-        Path dijkstry = new Path(this);
-        ArrayList<Integer> path = dijkstry.findPath(this, startVertex, finishVertex);
-        // for all vertices from the path, cut all right and bottom edges
-        for(int i = (path.size() - 1); i > 0; i--) {
-            int currentVertex = path.get(i);
-            v[currentVertex].removeNeighbour(Vertex.RIGHT);
-            if((currentVertex + 1) < getGraphSize()) {
-                v[currentVertex + 1].removeNeighbour(1);
+        // regions of the closest seeds (by hops)
+        for(int head = 0; head < tail; head++) {
+            int vertex = queue[head];
+            for(int i = 0; i < 4; i++) {
+                int neighbour = getNeighbour(vertex, i);
+                if(neighbour != -1 && region[neighbour] == -1) {
+                    region[neighbour] = region[vertex];
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        for(int vertex = 0; vertex < size; vertex++) {
+            if(hasNeighbour(vertex, Vertex.RIGHT) && region[vertex] != region[vertex + 1]) {
+                edges.removeEdge(vertex, EdgeStorage.RIGHT);
             }
-            v[currentVertex].removeNeighbour(3);
-            if((currentVertex + columns) < getGraphSize()) {
-                v[currentVertex + columns].removeNeighbour(0);
+            if(hasNeighbour(vertex, Vertex.LOWER) && region[vertex] != region[vertex + columns]) {
+                edges.removeEdge(vertex, EdgeStorage.LOWER);
             }
         }
+        modified();
     }
 
     /**
@@ -257,25 +673,15 @@ public class Graph implements GeneratedGraph, ReadGraph {
      * @param weight weight of the edge between the 2 vertices
      * @return error code (0 - success, -1 - failure)
      */
-    private int addNeighbour(int vertex, int neighbour, double weight) {
+    int addNeighbour(int vertex, int neighbour, double weight) {
         if (neighbour < 0 || neighbour >= getGraphSize() || neighbour == vertex || weight <= 0) {
             return -1;
         }
-        if (neighbour == (vertex - columns)) {
-            v[vertex].setNeighbour(Vertex.UPPER, neighbour, weight);
-            return 0;
-        }
-        if (neighbour == (vertex - 1)) {
-            v[vertex].setNeighbour(Vertex.LEFT, neighbour, weight);
-            return 0;
-        }
-        if (neighbour == (vertex + 1)) {
-            v[vertex].setNeighbour(Vertex.RIGHT, neighbour, weight);
-            return 0;
-        }
-        if (neighbour == (vertex + columns)) {
-            v[vertex].setNeighbour(Vertex.LOWER, neighbour, weight);
-            return 0;
+        for (int position = 0; position < 4; position++) {
+            if (neighbour == getAdjacent(vertex, position) && getEdgeOwner(vertex, position) != -1) {
+                putNeighbour(vertex, position, neighbour, weight);
+                return 0;
+            }
         }
         return -1;
     }
@@ -293,13 +699,11 @@ public class Graph implements GeneratedGraph, ReadGraph {
             rows = Integer.parseInt(line[0]);
             columns = Integer.parseInt(line[1]);
 
-            if (rows * columns > 10000 || rows * columns <= 0) {
-                // change to an exception? (arguments out of range or incorrect file format)
-                System.out.println("Error");
+            if (!isValidSize(rows, columns)) {
+                rows = columns = 0;
+                throw new IOException("Graph dimensions out of range.");
             } else {
-                v = new Vertex[rows * columns];
-                for (int i = 0; i < getGraphSize(); i++)
-                    v[i] = new Vertex();
+                allocate();
 
                 int neighbour;
                 double weight;
@@ -313,14 +717,62 @@ public class Graph implements GeneratedGraph, ReadGraph {
                             System.out.println("Error");
                         }
                     }
-                    setWeightRange();
                 }
+                setWeightRange();
             }
         } catch(NumberFormatException e) {
             throw new IOException("Incorrect file format.");
         }
     }
 
+    /**
+     * Reads a graph from a text file (with a single-pass byte parser, in parallel for large files),
+     * prints the parsing report.
+     * @param file text graph file
+     * @throws IOException in case of an incorrect file format
+     */
+    @Override
+    public void readGraph(File file) throws IOException {
+        TextGraphReader reader = new TextGraphReader(file);
+        TextGraphReader.Report report;
+        if (file.length() >= TextGraphReader.PARALLEL_SIZE && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            report = reader.readParallel(this);
+        } else {
+            report = reader.read(this);
+        }
+        System.out.println(report);
+        if (report.hasErrors()) {
+            throw new IOException(report.getErrors().get(0));
+        }
+    }
+
+    /**
+     * Reads a graph from a binary file (memory-mapped, loaded lazily on access).
+     * @param file binary graph file
+     * @throws IOException in case of an incorrect file format
+     */
+    @Override
+    public void readBinaryGraph(File file) throws IOException {
+        BinaryGraphFile binary = new BinaryGraphFile(file);
+        edges = binary.map();
+        pathEngine = null;
+        modified();
+        rows = binary.getRows();
+        columns = binary.getColumns();
+        weightLower = binary.getWeightLower();
+        weightUpper = binary.getWeightUpper();
+    }
+
+    /**
+     * Writes the graph into a binary file.
+     * @param file binary graph file
+     * @throws IOException in case of a writing error
+     */
+    @Override
+    public void writeBinaryGraph(File file) throws IOException {
+        BinaryGraphFile.write(this, file);
+    }
+
     /**
      * Writes the graph into a file.
      * @param writer provided PrintWriter
@@ -328,12 +780,23 @@ public class Graph implements GeneratedGraph, ReadGraph {
     @Override
     public void writeGraph(PrintWriter writer) {
         writer.println(rows + " " + columns);
-        for(Vertex current : v) {
-            writer.println("\t" + current);
+        for(int i = 0; i < getGraphSize(); i++) {
+            writer.println("\t" + getVertex(i));
         }
         writer.close();
     }
 
+    /**
+     * Writes the graph into a text file (formatted in parallel).
+     * @param file text graph file
+     * @param precision number of decimal places of the weights, TextGraphWriter.FULL_PRECISION to write them exactly
+     * @throws IOException in case of a writing error
+     */
+    @Override
+    public void writeGraph(File file, int precision) throws IOException {
+        new TextGraphWriter(this, precision).write(file);
+    }
+
     /**
      * Prints the graph contents to standard output.
      */
@@ -341,8 +804,8 @@ public class Graph implements GeneratedGraph, ReadGraph {
     public void printGraph() {
         System.out.println("rows = " + rows + " columns = " + columns);
         System.out.println("w1 = " + weightLower + " w2 = " + weightUpper);
-        for(Vertex current : v) {
-            System.out.println(current);
+        for(int i = 0; i < getGraphSize(); i++) {
+            System.out.println(getVertex(i));
         }
     }
 }
\ No newline at end of file
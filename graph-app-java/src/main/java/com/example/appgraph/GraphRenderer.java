@@ -0,0 +1,290 @@
+package com.example.appgraph;
+
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Rasterizer of a part of a graph into an ARGB pixel array, independent of the FX thread.
+ * The picture is the one Controllers used to draw on its canvas: black (or selected: fuchsia) vertices,
+ * edges coloured by weight and the shortest path. Weights are mapped to colours through a lookup table
+ * and strips of rows of the picture are rasterized in parallel on the common pool.
+ */
+public class GraphRenderer {
+    /**
+     * Vertex graphical representation diameter.
+     */
+    static final int POINT_SIZE = 20;
+
+    /**
+     * Edge graphical representation length.
+     */
+    static final int EDGE_LENGTH = 20;
+
+    /**
+     * Edge graphical representation width.
+     */
+    static final int EDGE_THICKNESS = 5;
+
+    /**
+     * Margin of the picture.
+     */
+    static final int PADDING = 20;
+
+    /**
+     * Distance between the centres of neighbouring vertices.
+     */
+    static final int CELL_SIZE = POINT_SIZE + EDGE_LENGTH;
+
+    /**
+     * Colour of the background.
+     */
+    private static final int WHITE = 0xffffffff;
+
+    /**
+     * Colour of the vertices.
+     */
+    private static final int BLACK = 0xff000000;
+
+    /**
+     * Colour of the selected vertices and of the path.
+     */
+    private static final int FUCHSIA = 0xffff00ff;
+
+    /**
+     * Number of entries of the colour lookup table.
+     */
+    private static final int COLOUR_COUNT = 1024;
+
+    /**
+     * Colours of the weights, from red (lower end of the weight range) to dark blue (upper end).
+     */
+    private static final int [] COLOURS = new int [COLOUR_COUNT];
+
+    /**
+     * Smallest number of rows of the picture rasterized by 1 task.
+     */
+    private static final int MIN_STRIP_HEIGHT = 64;
+
+    static {
+        double blue = Color.DARKBLUE.getHue();
+        double red = Color.RED.getHue();
+        for(int i = 0; i < COLOUR_COUNT; i++) {
+            Color colour = Color.hsb((blue - red) * i / (COLOUR_COUNT - 1) + red, 1.0, 1.0);
+            COLOURS[i] = 0xff000000 | (int) Math.round(colour.getRed() * 255) << 16
+                    | (int) Math.round(colour.getGreen() * 255) << 8 | (int) Math.round(colour.getBlue() * 255);
+        }
+    }
+
+    /**
+     * Graph being drawn.
+     */
+    private final Graph g;
+
+    /**
+     * Horizontal position of the picture on the whole drawing of the graph.
+     */
+    private final int offsetX;
+
+    /**
+     * Vertical position of the picture on the whole drawing of the graph.
+     */
+    private final int offsetY;
+
+    /**
+     * Width of the picture.
+     */
+    private final int width;
+
+    /**
+     * Height of the picture.
+     */
+    private final int height;
+
+    /**
+     * Pixels of the picture, row by row.
+     */
+    private final int [] pixels;
+
+    /**
+     * Prepares a picture of a part of a graph.
+     * @param g graph
+     * @param offsetX horizontal position of the picture on the whole drawing of the graph
+     * @param offsetY vertical position of the picture on the whole drawing of the graph
+     * @param width width of the picture
+     * @param height height of the picture
+     */
+    public GraphRenderer(Graph g, int offsetX, int offsetY, int width, int height) {
+        this.g = g;
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.width = width;
+        this.height = height;
+        this.pixels = new int [width * height];
+    }
+
+    /**
+     * Rasterizes the picture, in parallel strips on the common pool if it's large.
+     * @param selected selected vertices, drawn in fuchsia
+     * @param path vertices of the path to draw, null if there is no path
+     * @return pixels of the picture (ARGB, row by row)
+     */
+    public int [] render(int [] selected, int [] path) {
+        int strips = Math.max(1, Math.min(4 * ForkJoinPool.getCommonPoolParallelism(), height / MIN_STRIP_HEIGHT));
+        if(strips == 1) {
+            renderStrip(0, height, selected, path);
+            return pixels;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for(int strip = 0; strip < strips; strip++) {
+            int from = (int) ((long) height * strip / strips);
+            int to = (int) ((long) height * (strip + 1) / strips);
+            tasks.add(ForkJoinPool.commonPool().submit(() -> renderStrip(from, to, selected, path)));
+        }
+        for(ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return pixels;
+    }
+
+    /**
+     * Rasterizes the vertices, edges and path segments reaching into some rows of the picture.
+     * @param from 1st row of the picture
+     * @param to row after the last one
+     * @param selected selected vertices
+     * @param path vertices of the path, null if there is no path
+     */
+    private void renderStrip(int from, int to, int [] selected, int [] path) {
+        Arrays.fill(pixels, from * width, to * width, WHITE);
+        int columns = g.getColumns();
+        // rows and columns of the cells (a vertex and its right and lower edge) reaching into the strip
+        int firstRow = Math.max(0, Math.floorDiv(offsetY + from - PADDING, CELL_SIZE));
+        int lastRow = Math.min(g.getRows() - 1, Math.floorDiv(offsetY + to - PADDING, CELL_SIZE));
+        int firstColumn = Math.max(0, Math.floorDiv(offsetX - PADDING, CELL_SIZE));
+        int lastColumn = Math.min(columns - 1, Math.floorDiv(offsetX + width - PADDING, CELL_SIZE));
+        double lower = g.getWeightLower();
+        double range = g.getWeightUpper() - g.getWeightLower();
+        double scale = (range > 0) ? (COLOUR_COUNT - 1) / range : 0;
+
+        for(int i = firstRow; i <= lastRow; i++) {
+            for(int j = firstColumn; j <= lastColumn; j++) {
+                int vertexIndex = i * columns + j;
+                fillCircle(from, to, j * CELL_SIZE + PADDING, i * CELL_SIZE + PADDING,
+                        isSelected(vertexIndex, selected) ? FUCHSIA : BLACK);
+                if(g.hasNeighbour(vertexIndex, Vertex.RIGHT)) {
+                    fillRect(from, to, (j + 1) * POINT_SIZE + j * EDGE_LENGTH + PADDING,
+                            (2 * i + 1) * 0.5 * (POINT_SIZE - EDGE_THICKNESS) + i * (EDGE_LENGTH + EDGE_THICKNESS) + PADDING,
+                            EDGE_LENGTH, EDGE_THICKNESS,
+                            getColour(g.getWeight(vertexIndex, Vertex.RIGHT), lower, scale));
+                }
+                if(g.hasNeighbour(vertexIndex, Vertex.LOWER)) {
+                    fillRect(from, to,
+                            (2 * j + 1) * 0.5 * (POINT_SIZE - EDGE_THICKNESS) + j * (EDGE_LENGTH + EDGE_THICKNESS) + PADDING,
+                            (i + 1) * POINT_SIZE + i * EDGE_LENGTH + PADDING,
+                            EDGE_THICKNESS, EDGE_LENGTH,
+                            getColour(g.getWeight(vertexIndex, Vertex.LOWER), lower, scale));
+                }
+            }
+        }
+
+        if(path != null) {
+            // lines between the centres with square caps, as stroked on a canvas
+            double half = EDGE_THICKNESS / 2.0;
+            for(int i = 0; i < (path.length - 1); i++) {
+                int rowA = path[i] / columns;
+                int columnA = path[i] % columns;
+                int rowB = path[i + 1] / columns;
+                int columnB = path[i + 1] % columns;
+                if(Math.max(rowA, rowB) >= firstRow && Math.min(rowA, rowB) <= lastRow
+                        && Math.max(columnA, columnB) >= firstColumn && Math.min(columnA, columnB) <= lastColumn) {
+                    double left = getCentre(Math.min(columnA, columnB)) - half;
+                    double top = getCentre(Math.min(rowA, rowB)) - half;
+                    fillRect(from, to, left, top, getCentre(Math.max(columnA, columnB)) + half - left,
+                            getCentre(Math.max(rowA, rowB)) + half - top, FUCHSIA);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates the coordinate of the centre of a vertex on the whole drawing of the graph.
+     * @param index row or column of the vertex
+     * @return x coordinate for a column, y coordinate for a row
+     */
+    static double getCentre(int index) {
+        return index * CELL_SIZE + (POINT_SIZE / 2) + PADDING;
+    }
+
+    /**
+     * Checks if a vertex is selected.
+     * @param vertex index of the vertex
+     * @param selected selected vertices
+     * @return true or false
+     */
+    private static boolean isSelected(int vertex, int [] selected) {
+        for(int s : selected) {
+            if(s == vertex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the colour of a weight from the lookup table.
+     * @param weight weight value
+     * @param lower lower end of the weight range
+     * @param scale number of table entries per unit of weight
+     * @return colour (ARGB)
+     */
+    private static int getColour(double weight, double lower, double scale) {
+        int index = (int) Math.round((weight - lower) * scale);
+        return COLOURS[Math.max(0, Math.min(COLOUR_COUNT - 1, index))];
+    }
+
+    /**
+     * Fills the pixels of some rows of the picture whose centres lie in a rectangle of the whole drawing.
+     * @param from 1st row of the picture
+     * @param to row after the last one
+     * @param x left side of the rectangle
+     * @param y top side of the rectangle
+     * @param w width of the rectangle
+     * @param h height of the rectangle
+     * @param colour colour (ARGB)
+     */
+    private void fillRect(int from, int to, double x, double y, double w, double h, int colour) {
+        int left = Math.max(0, (int) Math.ceil(x - 0.5) - offsetX);
+        int right = Math.min(width, (int) Math.ceil(x + w - 0.5) - offsetX);
+        int top = Math.max(from, (int) Math.ceil(y - 0.5) - offsetY);
+        int bottom = Math.min(to, (int) Math.ceil(y + h - 0.5) - offsetY);
+        for(int py = top; py < bottom; py++) {
+            Arrays.fill(pixels, py * width + left, py * width + Math.max(left, right), colour);
+        }
+    }
+
+    /**
+     * Fills the pixels of some rows of the picture whose centres lie in the circle of a vertex.
+     * @param from 1st row of the picture
+     * @param to row after the last one
+     * @param x left side of the square around the circle
+     * @param y top side of the square around the circle
+     * @param colour colour (ARGB)
+     */
+    private void fillCircle(int from, int to, int x, int y, int colour) {
+        double radius = POINT_SIZE / 2.0;
+        for(int py = Math.max(from, y - offsetY); py < Math.min(to, y + POINT_SIZE - offsetY); py++) {
+            double dy = py + offsetY + 0.5 - (y + radius);
+            double dx = Math.sqrt(radius * radius - dy * dy);
+            // pixels with centres in [centre - dx, centre + dx]
+            int left = Math.max(0, (int) Math.ceil(x + radius - dx - 0.5) - offsetX);
+            int right = Math.min(width, (int) Math.floor(x + radius + dx - 0.5) + 1 - offsetX);
+            if(left < right) {
+                Arrays.fill(pixels, py * width + left, py * width + right, colour);
+            }
+        }
+    }
+}
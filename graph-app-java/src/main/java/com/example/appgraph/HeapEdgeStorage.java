@@ -0,0 +1,57 @@
+package com.example.appgraph;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Edge storage keeping the RIGHT and LOWER weight of every vertex in one array and edge presence in a bitset.
+ */
+public class HeapEdgeStorage implements EdgeStorage {
+    /**
+     * Handle for atomic updates of the words of the presence bitset.
+     */
+    private static final VarHandle PRESENT = MethodHandles.arrayElementVarHandle(long [].class);
+
+    /**
+     * Array containing edge weights, (vertex * 2 + edge) for each entry.
+     */
+    private final double [] weights;
+
+    /**
+     * Bitset of present edges, bit (vertex * 2 + edge) set if the edge is present.
+     */
+    private final long [] present;
+
+    /**
+     * Creates a storage with no edges.
+     * @param size number of vertices in the graph
+     */
+    public HeapEdgeStorage(int size) {
+        weights = new double [size * 2];
+        present = new long [(size * 2 + 63) >>> 6];
+    }
+
+    @Override
+    public boolean hasEdge(int vertex, int edge) {
+        int bit = vertex * 2 + edge;
+        return (present[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    @Override
+    public double getWeight(int vertex, int edge) {
+        return weights[vertex * 2 + edge];
+    }
+
+    @Override
+    public void setEdge(int vertex, int edge, double weight) {
+        int bit = vertex * 2 + edge;
+        weights[bit] = weight;
+        PRESENT.getAndBitwiseOr(present, bit >>> 6, 1L << bit);
+    }
+
+    @Override
+    public void removeEdge(int vertex, int edge) {
+        int bit = vertex * 2 + edge;
+        PRESENT.getAndBitwiseAnd(present, bit >>> 6, ~(1L << bit));
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.appgraph;
+
+import java.util.Arrays;
+
+/**
+ * Edge storage of a generated graph which computes the weights from the seed of the graph on demand
+ * (the same weights as Graph.generateGraph(long) stores) and keeps only the changed edges,
+ * in a hash table from the edge index (vertex * 2 + edge) to the new weight, NaN for a removed edge.
+ * Memory grows with the number of changed edges, e.g. the edges cut by splitGraph, not with the size of the graph.
+ * Changes are synchronized, reads aren't: the edges must not be changed while other threads read them.
+ */
+public class ImplicitEdgeStorage implements EdgeStorage {
+    /**
+     * Marker of an empty slot of the hash table.
+     */
+    private static final long EMPTY = -1;
+
+    /**
+     * Initial number of slots of the hash table.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Seed of the graph.
+     */
+    private final long seed;
+
+    /**
+     * Number of vertices of the graph.
+     */
+    private final int size;
+
+    /**
+     * Number of columns of the graph.
+     */
+    private final int columns;
+
+    /**
+     * Lower end of the range of the generated weights.
+     */
+    private final double weightLower;
+
+    /**
+     * Upper end of the range of the generated weights.
+     */
+    private final double weightUpper;
+
+    /**
+     * Indices of the changed edges (EMPTY in free slots), the number of slots is a power of 2.
+     */
+    private long [] keys;
+
+    /**
+     * Weights of the changed edges, NaN for a removed edge.
+     */
+    private double [] values;
+
+    /**
+     * Number of changed edges.
+     */
+    private volatile int count;
+
+    /**
+     * Creates a storage of the edges generated from a seed, with no changes.
+     * @param seed seed of the graph
+     * @param rows number of rows of the graph
+     * @param columns number of columns of the graph
+     * @param weightLower lower end of the weight range
+     * @param weightUpper upper end of the weight range
+     */
+    public ImplicitEdgeStorage(long seed, int rows, int columns, double weightLower, double weightUpper) {
+        this.seed = seed;
+        this.size = rows * columns;
+        this.columns = columns;
+        this.weightLower = weightLower;
+        this.weightUpper = weightUpper;
+        keys = new long [INITIAL_CAPACITY];
+        values = new double [INITIAL_CAPACITY];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Finds the slot of an edge in the hash table (linear probing).
+     * @param keys slots of the hash table
+     * @param key index of the edge
+     * @return index of the slot holding the edge, or of the free slot where it belongs
+     */
+    private static int findSlot(long [] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) Graph.mix(0, key) & mask;
+        while(keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @Override
+    public boolean hasEdge(int vertex, int edge) {
+        // edges leaving the grid are never generated
+        if(edge == RIGHT ? (vertex % columns == columns - 1) : (vertex >= size - columns)) {
+            return false;
+        }
+        if(count == 0) {
+            return true;
+        }
+        long [] k = keys;
+        int slot = findSlot(k, vertex * 2L + edge);
+        return k[slot] == EMPTY || !Double.isNaN(values[slot]);
+    }
+
+    @Override
+    public double getWeight(int vertex, int edge) {
+        long key = vertex * 2L + edge;
+        if(count != 0) {
+            long [] k = keys;
+            int slot = findSlot(k, key);
+            if(k[slot] == key) {
+                return values[slot];
+            }
+        }
+        return Graph.getRandomWeight(seed, key, weightLower, weightUpper);
+    }
+
+    @Override
+    public synchronized void setEdge(int vertex, int edge, double weight) {
+        long key = vertex * 2L + edge;
+        if(weight == Graph.getRandomWeight(seed, key, weightLower, weightUpper)) {
+            // back to the generated weight, e.g. a cut edge added again
+            remove(key);
+        } else {
+            put(key, weight);
+        }
+    }
+
+    @Override
+    public synchronized void removeEdge(int vertex, int edge) {
+        put(vertex * 2L + edge, Double.NaN);
+    }
+
+    /**
+     * Records a change of an edge, doubling the hash table when it gets half full.
+     * @param key index of the edge
+     * @param value new weight of the edge, NaN if removed
+     */
+    private void put(long key, double value) {
+        int slot = findSlot(keys, key);
+        if(keys[slot] == key) {
+            values[slot] = value;
+            return;
+        }
+        if(2 * (count + 1) > keys.length) {
+            long [] oldKeys = keys;
+            double [] oldValues = values;
+            long [] newKeys = new long [2 * oldKeys.length];
+            double [] newValues = new double [newKeys.length];
+            Arrays.fill(newKeys, EMPTY);
+            for(int i = 0; i < oldKeys.length; i++) {
+                if(oldKeys[i] != EMPTY) {
+                    int newSlot = findSlot(newKeys, oldKeys[i]);
+                    newKeys[newSlot] = oldKeys[i];
+                    newValues[newSlot] = oldValues[i];
+                }
+            }
+            values = newValues;
+            keys = newKeys;
+            slot = findSlot(keys, key);
+        }
+        values[slot] = value;
+        keys[slot] = key;
+        count++;
+    }
+
+    /**
+     * Drops the change of an edge, moving the following entries of its probe sequence back.
+     * @param key index of the edge
+     */
+    private void remove(long key) {
+        int slot = findSlot(keys, key);
+        if(keys[slot] != key) {
+            return;
+        }
+        int mask = keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while(keys[next] != EMPTY) {
+            int home = (int) Graph.mix(0, keys[next]) & mask;
+            // the entry may move to the free slot if its home isn't between the free slot and itself
+            if(((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = EMPTY;
+        count--;
+    }
+
+    /**
+     * Gets the seed of the graph.
+     * @return seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of edges changed or removed since the graph was generated.
+     * @return number of edges
+     */
+    public int getChangedCount() {
+        return count;
+    }
+
+    /**
+     * Gets the memory taken by the hash table of the changed edges.
+     * @return size in bytes
+     */
+    public long getBytes() {
+        return (long) keys.length * (Long.BYTES + Double.BYTES);
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.appgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Landmark index for A* searches (ALT: A*, landmarks, triangle inequality).
+ * For a landmark L and any 2 vertices v, t the distance between them is at least |d(L, t) - d(L, v)|,
+ * on split grids this bound follows the walls, unlike the Manhattan distance.
+ * A landmark reaching only 1 of 2 vertices proves they aren't connected, so such queries end at once.
+ * Larger components get a landmark first, the rest are chosen by farthest-point selection on hop distances,
+ * then the distance arrays of the landmarks are computed in parallel on the common pool and kept as floats,
+ * the distances of 1 vertex next to each other.
+ * An index is bound to the graph and the version of the graph it was computed for.
+ */
+public class Landmarks {
+    /**
+     * Default number of landmarks.
+     */
+    public static final int DEFAULT_COUNT = 16;
+
+    /**
+     * Upper bound of the relative rounding error of a float distance, doubled for safety.
+     */
+    private static final double FLOAT_ERROR = 0x1p-23;
+
+    /**
+     * Graph the index was computed for.
+     */
+    private final Graph g;
+
+    /**
+     * Version of the graph the index was computed for.
+     */
+    private final long graphVersion;
+
+    /**
+     * Landmark vertices.
+     */
+    private final int [] landmarks;
+
+    /**
+     * Distances from the landmarks: the distance of vertex v from landmark l at index (v * number of landmarks + l),
+     * infinity if not reachable.
+     */
+    private final float [] distance;
+
+    /**
+     * Time of computing the index in nanoseconds.
+     */
+    private final long buildNanos;
+
+    /**
+     * Creates an index from computed distances.
+     * @param g graph
+     * @param graphVersion version of the graph
+     * @param landmarks landmark vertices
+     * @param distance distances from the landmarks
+     * @param buildNanos time of computing the index in nanoseconds
+     */
+    private Landmarks(Graph g, long graphVersion, int [] landmarks, float [] distance, long buildNanos) {
+        this.g = g;
+        this.graphVersion = graphVersion;
+        this.landmarks = landmarks;
+        this.distance = distance;
+        this.buildNanos = buildNanos;
+    }
+
+    /**
+     * Computes the landmark index of a graph.
+     * @param g graph
+     * @param count number of landmarks (fewer are used if the graph has fewer vertices), at most getMaxCount(g)
+     * @return index of the graph
+     */
+    public static Landmarks build(Graph g, int count) {
+        if(count <= 0) {
+            throw new IllegalArgumentException("Number of landmarks must be positive.");
+        }
+        if(count > getMaxCount(g)) {
+            throw new IllegalArgumentException("Too many landmarks: the distances of at most " + getMaxCount(g)
+                    + " landmarks of " + g.getGraphSize() + " vertices fit in 1 array.");
+        }
+        long begin = System.nanoTime();
+        long version = g.getVersion();
+        int [] landmarks = selectLandmarks(g, Math.min(count, g.getGraphSize()));
+        int k = landmarks.length;
+        // k * size <= MAX_GRAPH_SIZE (checked above), so the indexes (vertex * k + l) don't overflow
+        float [] distance = new float [g.getGraphSize() * k];
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for(int l = 0; l < k; l++) {
+            int index = l;
+            tasks.add(ForkJoinPool.commonPool().submit(() -> {
+                Path path = new Path(g);
+                path.findTree(g, landmarks[index]);
+                for(int vertex = 0; vertex < path.distance.length; vertex++) {
+                    distance[vertex * k + index] = (float) path.distance[vertex];
+                }
+            }));
+        }
+        for(ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return new Landmarks(g, version, landmarks, distance, System.nanoTime() - begin);
+    }
+
+    /**
+     * Calculates the largest number of landmarks whose distances fit in the index of a graph.
+     * @param g graph
+     * @return number of landmarks (the distances of all the vertices from all the landmarks are kept in 1 array)
+     */
+    public static int getMaxCount(Graph g) {
+        return Graph.MAX_GRAPH_SIZE / g.getGraphSize();
+    }
+
+    /**
+     * Chooses landmarks. First every component with at least 1 / count of the vertices gets a landmark
+     * (largest first, always at least the largest component): its farthest vertex from its 1st vertex.
+     * Then farthest-point selection: each next landmark is the vertex with the most hops to the closest landmark
+     * (ties broken by the lowest index).
+     * @param g graph
+     * @param count number of landmarks
+     * @return landmark vertices
+     */
+    private static int [] selectLandmarks(Graph g, int count) {
+        int size = g.getGraphSize();
+        int [] hops = new int [size];
+        int [] level = new int [size];
+        int [] queue = new int [size];
+
+        // components as (size, farthest vertex from the 1st vertex)
+        List<int []> components = new ArrayList<>();
+        Arrays.fill(level, -1);
+        for(int vertex = 0; vertex < size; vertex++) {
+            if(level[vertex] == -1) {
+                int reached = breadthFirstSearch(g, vertex, level, queue);
+                components.add(new int [] {reached, queue[reached - 1]});
+            }
+        }
+        components.sort((a, b) -> Integer.compare(b[0], a[0]));
+
+        Arrays.fill(hops, Integer.MAX_VALUE);
+        int [] landmarks = new int [count];
+        int chosen = 0;
+        for(int [] component : components) {
+            if(chosen == count || (chosen > 0 && (long) component[0] * count < size)) {
+                break;
+            }
+            landmarks[chosen++] = component[1];
+            lowerHops(g, component[1], hops, level, queue);
+        }
+        while(chosen < count) {
+            int next = findFarthest(hops);
+            if(hops[next] <= 0) {
+                // every vertex is a landmark
+                break;
+            }
+            landmarks[chosen++] = next;
+            lowerHops(g, next, hops, level, queue);
+        }
+        return Arrays.copyOf(landmarks, chosen);
+    }
+
+    /**
+     * Counts the hops from a vertex to the vertices of its component, in the order of a breadth-first search.
+     * @param g graph
+     * @param startVertex vertex from which the search starts
+     * @param level hops of each vertex ((-1) if not reached), reached vertices are set
+     * @param queue array for the queue of the search, contains the reached vertices afterwards
+     * @return number of reached vertices
+     */
+    private static int breadthFirstSearch(Graph g, int startVertex, int [] level, int [] queue) {
+        level[startVertex] = 0;
+        queue[0] = startVertex;
+        int head = 0;
+        int tail = 1;
+        while(head < tail) {
+            int vertex = queue[head++];
+            for(int i = 0; i < 4; i++) {
+                int neighbour = g.getNeighbour(vertex, i);
+                if(neighbour != -1 && level[neighbour] == -1) {
+                    level[neighbour] = level[vertex] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Lowers the hops to the closest landmark by the hops to a new landmark.
+     * @param g graph
+     * @param landmark new landmark
+     * @param hops hops of each vertex to the closest landmark (max int if no landmark is reachable)
+     * @param level array for the hops of the search
+     * @param queue array for the queue of the search
+     */
+    private static void lowerHops(Graph g, int landmark, int [] hops, int [] level, int [] queue) {
+        Arrays.fill(level, -1);
+        int reached = breadthFirstSearch(g, landmark, level, queue);
+        for(int i = 0; i < reached; i++) {
+            hops[queue[i]] = Math.min(hops[queue[i]], level[queue[i]]);
+        }
+    }
+
+    /**
+     * Finds the vertex with the most hops to the closest landmark (among vertices a landmark is reachable from).
+     * @param hops hops of each vertex to the closest landmark
+     * @return index of the vertex
+     */
+    private static int findFarthest(int [] hops) {
+        int farthest = 0;
+        int most = -1;
+        for(int i = 0; i < hops.length; i++) {
+            if(hops[i] != Integer.MAX_VALUE && hops[i] > most) {
+                farthest = i;
+                most = hops[i];
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * Calculates the A* heuristic: the best of the landmark bounds and the Manhattan bound of the distance
+     * between 2 vertices (reduced by the float rounding error, so it stays a lower bound).
+     * @param vertex vertex from which the distance is estimated
+     * @param finishVertex vertex to which the distance is estimated
+     * @return lower bound of the distance, infinity if a landmark reaches only 1 of the vertices
+     * (they lie in different components)
+     */
+    double estimate(int vertex, int finishVertex) {
+        double bound = Path.estimate(g, vertex, finishVertex);
+        int k = landmarks.length;
+        int v = vertex * k;
+        int t = finishVertex * k;
+        for(int l = 0; l < k; l++) {
+            double fromVertex = distance[v + l];
+            double toFinish = distance[t + l];
+            if((fromVertex == Double.POSITIVE_INFINITY) != (toFinish == Double.POSITIVE_INFINITY)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            if(fromVertex != Double.POSITIVE_INFINITY) {
+                double difference = Math.abs(toFinish - fromVertex) - (toFinish + fromVertex) * FLOAT_ERROR;
+                bound = Math.max(bound, difference);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Checks if the index can be used for a graph in its current state.
+     * @param g graph
+     * @return true if the index was computed for this graph and the graph hasn't changed since
+     */
+    public boolean isCurrent(Graph g) {
+        return this.g == g && g.getVersion() == graphVersion;
+    }
+
+    /**
+     * Gets the landmark vertices.
+     * @return copy of the array of landmarks
+     */
+    public int [] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * Gets the number of landmarks.
+     * @return number of landmarks
+     */
+    public int getCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Gets the memory taken by the distances of 1 landmark.
+     * @return size in bytes
+     */
+    public long getBytesPerLandmark() {
+        return (long) g.getGraphSize() * Float.BYTES;
+    }
+
+    /**
+     * Gets the time of computing the index.
+     * @return time in milliseconds
+     */
+    public double getBuildMillis() {
+        return buildNanos / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Landmarks: %d, %.1f MB per landmark, computed in %.1f ms",
+                landmarks.length, getBytesPerLandmark() / 1e6, getBuildMillis());
+    }
+}
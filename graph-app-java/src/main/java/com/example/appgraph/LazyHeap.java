@@ -0,0 +1,84 @@
+package com.example.appgraph;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (key, vertex) entries; a vertex may be pushed many times, outdated entries are skipped
+ * by the searches (lazy deletion).
+ */
+class LazyHeap {
+    /**
+     * Keys of the entries.
+     */
+    double [] keys = new double [64];
+
+    /**
+     * Vertices of the entries.
+     */
+    int [] vertices = new int [64];
+
+    /**
+     * Number of entries.
+     */
+    int count;
+
+    /**
+     * Adds an entry.
+     * @param vertex vertex of the entry
+     * @param key key of the entry
+     */
+    void push(int vertex, double key) {
+        if(count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            vertices = Arrays.copyOf(vertices, count * 2);
+        }
+        int child = count++;
+        while(child > 0) {
+            int parent = (child - 1) / 2;
+            if(keys[parent] <= key) {
+                break;
+            }
+            keys[child] = keys[parent];
+            vertices[child] = vertices[parent];
+            child = parent;
+        }
+        keys[child] = key;
+        vertices[child] = vertex;
+    }
+
+    /**
+     * Gets the lowest key.
+     * @return lowest key, infinity if the heap is empty
+     */
+    double peekKey() {
+        return (count == 0) ? Double.POSITIVE_INFINITY : keys[0];
+    }
+
+    /**
+     * Removes an entry of the lowest key.
+     * @return vertex of the removed entry
+     */
+    int pop() {
+        int popped = vertices[0];
+        count--;
+        double key = keys[count];
+        int vertex = vertices[count];
+        int parent = 0;
+        int child = 1;
+        while(child < count) {
+            if((child + 1) < count && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if(key <= keys[child]) {
+                break;
+            }
+            keys[parent] = keys[child];
+            vertices[parent] = vertices[child];
+            parent = child;
+            child = 2 * parent + 1;
+        }
+        keys[parent] = key;
+        vertices[parent] = vertex;
+        return popped;
+    }
+}
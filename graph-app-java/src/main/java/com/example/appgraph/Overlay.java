@@ -0,0 +1,698 @@
+package com.example.appgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Multi-level overlay index of a graph whose weights change between queries.
+ * The grid is partitioned into square tiles (level 1), groups of LEVEL_FACTOR x LEVEL_FACTOR tiles form the cells
+ * of the next level and so on. Boundary vertices of a cell have a grid neighbour in another cell, for every cell
+ * a table holds the distances between its boundary vertices inside the cell (a clique).
+ * The partition depends only on the dimensions, the tables on the weights: a weight change marks the cells
+ * containing the edge, customize() recomputes only the marked cells, in parallel on the common pool.
+ * Queries run a Dijkstry search which uses the tables of the highest level at which a vertex lies in another cell
+ * than the start and finish vertices, and the edges of the graph near them; clique edges are unpacked to vertices
+ * of the graph by searches inside their cells.
+ * Queries and weight changes aren't thread-safe.
+ */
+public class Overlay {
+    /**
+     * Default side length of the tiles of level 1.
+     */
+    public static final int DEFAULT_TILE_SIZE = 16;
+
+    /**
+     * Default number of levels.
+     */
+    public static final int DEFAULT_LEVELS = 2;
+
+    /**
+     * Number of cells along each side of a cell of the next level.
+     */
+    public static final int LEVEL_FACTOR = 4;
+
+    /**
+     * Rectangular cell of a level with the distance table of its boundary vertices.
+     */
+    private static class Cell {
+        /**
+         * First row of the cell.
+         */
+        final int firstRow;
+
+        /**
+         * First column of the cell.
+         */
+        final int firstColumn;
+
+        /**
+         * Number of rows of the cell.
+         */
+        final int height;
+
+        /**
+         * Number of columns of the cell.
+         */
+        final int width;
+
+        /**
+         * Boundary vertices of the cell in ascending order.
+         */
+        int [] boundary;
+
+        /**
+         * Distances inside the cell: from boundary vertex i to boundary vertex j at index (i * boundary size + j),
+         * infinity if there is no path inside the cell.
+         */
+        double [] table;
+
+        /**
+         * True if the table has to be recomputed.
+         */
+        boolean dirty = true;
+
+        /**
+         * Creates a cell.
+         * @param firstRow first row of the cell
+         * @param firstColumn first column of the cell
+         * @param height number of rows of the cell
+         * @param width number of columns of the cell
+         */
+        Cell(int firstRow, int firstColumn, int height, int width) {
+            this.firstRow = firstRow;
+            this.firstColumn = firstColumn;
+            this.height = height;
+            this.width = width;
+        }
+    }
+
+    /**
+     * Graph of the index.
+     */
+    private final Graph g;
+
+    /**
+     * Number of columns of the graph.
+     */
+    private final int columns;
+
+    /**
+     * Side length of the cells of each level (level 1 at index 0).
+     */
+    private final int [] cellSide;
+
+    /**
+     * Number of columns of cells of each level.
+     */
+    private final int [] cellColumns;
+
+    /**
+     * Cells of each level, by (row of cells * columns of cells + column of cells).
+     */
+    private final Cell [][] cells;
+
+    /**
+     * Index of each vertex in the boundary of its cell for each level, (-1) if not a boundary vertex.
+     */
+    private final int [][] boundaryIndex;
+
+    /**
+     * Version of the graph with all changes made through the index, (-1) before the 1st customization.
+     */
+    private long expectedVersion = -1;
+
+    /**
+     * Number of cells marked for recomputing.
+     */
+    private int dirtyCount;
+
+    /**
+     * Number of cells recomputed by the last customization.
+     */
+    private int customizedCount;
+
+    /**
+     * Time of the last customization in nanoseconds.
+     */
+    private long customizeNanos;
+
+    /**
+     * Distances of the vertices reached by the current query.
+     */
+    private final double [] distance;
+
+    /**
+     * Predecessors of the vertices reached by the current query.
+     */
+    private final int [] predecessor;
+
+    /**
+     * Level of the clique edge from the predecessor of each vertex, 0 for an edge of the graph.
+     */
+    private final byte [] predecessorLevel;
+
+    /**
+     * Number of the query in which each vertex was reached.
+     */
+    private final int [] stamp;
+
+    /**
+     * Heap of the queries.
+     */
+    private final LazyHeap heap = new LazyHeap();
+
+    /**
+     * Number of the current query.
+     */
+    private int query;
+
+    /**
+     * Number of vertices settled by the last query.
+     */
+    private int settled;
+
+    /**
+     * Length of the path found by the last query.
+     */
+    private double pathDistance = Double.POSITIVE_INFINITY;
+
+    /**
+     * Cell of the start vertex of the current query for each level.
+     */
+    private final int [] startCell;
+
+    /**
+     * Cell of the finish vertex of the current query for each level.
+     */
+    private final int [] finishCell;
+
+    /**
+     * Creates an index with the default tile size and number of levels.
+     * @param g graph
+     */
+    public Overlay(Graph g) {
+        this(g, DEFAULT_TILE_SIZE, DEFAULT_LEVELS);
+    }
+
+    /**
+     * Partitions a graph into cells (the distance tables are computed by the 1st customization).
+     * @param g graph
+     * @param tileSize side length of the tiles of level 1
+     * @param levels number of levels
+     */
+    public Overlay(Graph g, int tileSize, int levels) {
+        if(tileSize < 2 || levels < 1 || levels > Byte.MAX_VALUE
+                || (long) tileSize * Math.pow(LEVEL_FACTOR, levels - 1) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Incorrect tile size or number of levels.");
+        }
+        this.g = g;
+        this.columns = g.getColumns();
+        int rows = g.getRows();
+        int size = g.getGraphSize();
+        cellSide = new int [levels];
+        cellColumns = new int [levels];
+        cells = new Cell [levels][];
+        boundaryIndex = new int [levels][];
+        for(int level = 0; level < levels; level++) {
+            int side = (level == 0) ? tileSize : cellSide[level - 1] * LEVEL_FACTOR;
+            cellSide[level] = side;
+            cellColumns[level] = (columns + side - 1) / side;
+            int cellRows = (rows + side - 1) / side;
+            cells[level] = new Cell [cellRows * cellColumns[level]];
+            boundaryIndex[level] = new int [size];
+            Arrays.fill(boundaryIndex[level], -1);
+            for(int i = 0; i < cells[level].length; i++) {
+                int firstRow = (i / cellColumns[level]) * side;
+                int firstColumn = (i % cellColumns[level]) * side;
+                Cell cell = new Cell(firstRow, firstColumn, Math.min(side, rows - firstRow),
+                        Math.min(side, columns - firstColumn));
+                cell.boundary = findBoundary(cell, rows);
+                for(int j = 0; j < cell.boundary.length; j++) {
+                    boundaryIndex[level][cell.boundary[j]] = j;
+                }
+                cells[level][i] = cell;
+            }
+            // every cell starts marked, its table is computed by the 1st customization
+            dirtyCount += cells[level].length;
+        }
+        distance = new double [size];
+        predecessor = new int [size];
+        predecessorLevel = new byte [size];
+        stamp = new int [size];
+        startCell = new int [levels];
+        finishCell = new int [levels];
+    }
+
+    /**
+     * Finds the boundary vertices of a cell: vertices with a grid neighbour in another cell.
+     * @param cell cell
+     * @param rows number of rows of the graph
+     * @return boundary vertices in ascending order
+     */
+    private int [] findBoundary(Cell cell, int rows) {
+        int lastRow = cell.firstRow + cell.height - 1;
+        int lastColumn = cell.firstColumn + cell.width - 1;
+        int [] boundary = new int [2 * (cell.height + cell.width)];
+        int count = 0;
+        for(int row = cell.firstRow; row <= lastRow; row++) {
+            for(int column = cell.firstColumn; column <= lastColumn; column++) {
+                if((row == cell.firstRow && row > 0) || (row == lastRow && row < rows - 1)
+                        || (column == cell.firstColumn && column > 0) || (column == lastColumn && column < columns - 1)) {
+                    boundary[count++] = row * columns + column;
+                }
+            }
+        }
+        return Arrays.copyOf(boundary, count);
+    }
+
+    /**
+     * Gets the number of levels.
+     * @return number of levels
+     */
+    public int getLevels() {
+        return cells.length;
+    }
+
+    /**
+     * Calculates the cell of a vertex at a level.
+     * @param level level (from 1)
+     * @param vertex index of the vertex
+     * @return index of the cell
+     */
+    private int getCell(int level, int vertex) {
+        int side = cellSide[level - 1];
+        return (vertex / columns / side) * cellColumns[level - 1] + (vertex % columns) / side;
+    }
+
+    /**
+     * Checks if a vertex lies in a cell.
+     * @param cell cell
+     * @param vertex index of the vertex
+     * @return true or false
+     */
+    private boolean contains(Cell cell, int vertex) {
+        int row = vertex / columns;
+        int column = vertex % columns;
+        return row >= cell.firstRow && row < cell.firstRow + cell.height
+                && column >= cell.firstColumn && column < cell.firstColumn + cell.width;
+    }
+
+    /**
+     * Changes the weight of an edge and marks the cells containing it for recomputing.
+     * @param vertex index of the vertex
+     * @param position position of the edge in relation to the vertex
+     * @param weight new weight of the edge (positive)
+     */
+    public void updateWeight(int vertex, int position, double weight) {
+        int neighbour = g.getNeighbour(vertex, position);
+        if(neighbour == -1) {
+            throw new IllegalArgumentException("Edge doesn't exist.");
+        }
+        if(!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Weight must be positive.");
+        }
+        boolean known = g.getVersion() == expectedVersion;
+        g.setNeighbour(vertex, position, neighbour, weight);
+        if(weight < g.getWeightLower() || weight > g.getWeightUpper()) {
+            // keep the range a valid bound for the A* heuristic
+            g.setWeightRange(Math.min(weight, g.getWeightLower()), Math.max(weight, g.getWeightUpper()));
+        }
+        if(known) {
+            expectedVersion = g.getVersion();
+        }
+        for(int level = 1; level <= cells.length; level++) {
+            // edges between cells aren't in the tables, queries read them from the graph
+            Cell cell = cells[level - 1][getCell(level, vertex)];
+            if(getCell(level, neighbour) == getCell(level, vertex) && !cell.dirty) {
+                cell.dirty = true;
+                dirtyCount++;
+            }
+        }
+    }
+
+    /**
+     * Checks if the tables are up to date with the graph.
+     * @return true if no cell is marked and the graph wasn't changed other than through the index
+     */
+    public boolean isCustomized() {
+        return dirtyCount == 0 && g.getVersion() == expectedVersion;
+    }
+
+    /**
+     * Recomputes the tables of the marked cells (of all cells if the graph was changed other than through the index)
+     * in parallel on the common pool.
+     * @return number of recomputed cells
+     */
+    public int customize() {
+        long begin = System.nanoTime();
+        boolean all = g.getVersion() != expectedVersion;
+        int count = 0;
+        // level by level, the tables of a level are computed from the tables of the level below
+        for(int level = 1; level <= cells.length; level++) {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for(Cell cell : cells[level - 1]) {
+                if(all || cell.dirty) {
+                    int subLevel = level - 1;
+                    tasks.add(ForkJoinPool.commonPool().submit(() -> customize(cell, subLevel)));
+                    count++;
+                }
+            }
+            for(ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+            for(Cell cell : cells[level - 1]) {
+                cell.dirty = false;
+            }
+        }
+        dirtyCount = 0;
+        expectedVersion = g.getVersion();
+        customizedCount = count;
+        customizeNanos = System.nanoTime() - begin;
+        return count;
+    }
+
+    /**
+     * Computes the distance table of a cell with a search inside the cell from each boundary vertex.
+     * @param cell cell
+     * @param subLevel level of the tables used by the searches, 0 for the edges of the graph
+     */
+    private void customize(Cell cell, int subLevel) {
+        int [] boundary = cell.boundary;
+        double [] table = new double [boundary.length * boundary.length];
+        double [] local = new double [cell.height * cell.width];
+        LazyHeap cellHeap = new LazyHeap();
+        int [][] localBoundary = null;
+        if(subLevel > 0) {
+            // boundary vertices of the cells of the lower level by index inside this cell
+            localBoundary = new int [cells[subLevel - 1].length][];
+            int side = cellSide[subLevel - 1];
+            for(int row = cell.firstRow; row < cell.firstRow + cell.height; row += side) {
+                for(int column = cell.firstColumn; column < cell.firstColumn + cell.width; column += side) {
+                    int subCell = getCell(subLevel, row * columns + column);
+                    int [] subBoundary = cells[subLevel - 1][subCell].boundary;
+                    localBoundary[subCell] = new int [subBoundary.length];
+                    for(int j = 0; j < subBoundary.length; j++) {
+                        localBoundary[subCell][j] = getLocal(cell, subBoundary[j]);
+                    }
+                }
+            }
+        }
+        for(int i = 0; i < boundary.length; i++) {
+            searchCell(cell, subLevel, localBoundary, boundary[i], -1, local, null, cellHeap);
+            for(int j = 0; j < boundary.length; j++) {
+                table[i * boundary.length + j] = local[getLocal(cell, boundary[j])];
+            }
+        }
+        cell.table = table;
+    }
+
+    /**
+     * Calculates the index of a vertex inside a cell.
+     * @param cell cell
+     * @param vertex index of the vertex
+     * @return index inside the cell
+     */
+    private int getLocal(Cell cell, int vertex) {
+        return (vertex / columns - cell.firstRow) * cell.width + (vertex % columns - cell.firstColumn);
+    }
+
+    /**
+     * Calculates the index of a vertex from its index inside a cell.
+     * @param cell cell
+     * @param local index inside the cell
+     * @return index of the vertex
+     */
+    private int getGlobal(Cell cell, int local) {
+        return (cell.firstRow + local / cell.width) * columns + cell.firstColumn + local % cell.width;
+    }
+
+    /**
+     * Runs a Dijkstry search inside a cell, over the edges of the graph or over the tables of the cells
+     * of a lower level (their boundary vertices and the edges of the graph between those cells).
+     * @param cell cell
+     * @param subLevel level of the used tables, 0 for the edges of the graph
+     * @param localBoundary boundary vertices of the cells of the lower level by index inside the cell
+     * (by the index of the lower level cell), null for the edges of the graph
+     * @param source vertex from which the search starts
+     * @param target vertex at which the search stops, (-1) to search the whole cell
+     * @param local array for the distances (by index inside the cell)
+     * @param localPredecessor array for the predecessors (by index inside the cell), null if not needed
+     * @param cellHeap heap of the search
+     */
+    private void searchCell(Cell cell, int subLevel, int [][] localBoundary, int source, int target, double [] local,
+                            int [] localPredecessor, LazyHeap cellHeap) {
+        Arrays.fill(local, Double.POSITIVE_INFINITY);
+        int localTarget = (target == -1) ? -1 : getLocal(cell, target);
+        cellHeap.count = 0;
+        int localSource = getLocal(cell, source);
+        local[localSource] = 0.0;
+        cellHeap.push(localSource, 0.0);
+        while(cellHeap.count > 0) {
+            double key = cellHeap.peekKey();
+            int current = cellHeap.pop();
+            if(key > local[current]) {
+                continue;
+            }
+            if(current == localTarget) {
+                return;
+            }
+            int vertex = getGlobal(cell, current);
+            int subCell = -1;
+            if(subLevel > 0) {
+                subCell = getCell(subLevel, vertex);
+                double [] table = cells[subLevel - 1][subCell].table;
+                int [] subBoundary = localBoundary[subCell];
+                int row = boundaryIndex[subLevel - 1][vertex] * subBoundary.length;
+                for(int j = 0; j < subBoundary.length; j++) {
+                    double newDistance = key + table[row + j];
+                    int next = subBoundary[j];
+                    if(newDistance < local[next]) {
+                        local[next] = newDistance;
+                        if(localPredecessor != null) {
+                            localPredecessor[next] = current;
+                        }
+                        cellHeap.push(next, newDistance);
+                    }
+                }
+            }
+            for(int i = 0; i < 4; i++) {
+                int neighbour = g.getNeighbour(vertex, i);
+                if(neighbour != -1 && contains(cell, neighbour)
+                        && (subLevel == 0 || getCell(subLevel, neighbour) != subCell)) {
+                    int next = getLocal(cell, neighbour);
+                    double newDistance = key + g.getWeight(vertex, i);
+                    if(newDistance < local[next]) {
+                        local[next] = newDistance;
+                        if(localPredecessor != null) {
+                            localPredecessor[next] = current;
+                        }
+                        cellHeap.push(next, newDistance);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the highest level at which a vertex lies in another cell than the start and finish vertices.
+     * @param vertex index of the vertex
+     * @return level, 0 if the vertex shares a tile with the start or finish vertex
+     */
+    private int getQueryLevel(int vertex) {
+        for(int level = cells.length; level >= 1; level--) {
+            int cell = getCell(level, vertex);
+            if(cell != startCell[level - 1] && cell != finishCell[level - 1]) {
+                return level;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the distance of a vertex reached by the current query.
+     * @param vertex index of the vertex
+     * @return distance, infinity if not reached
+     */
+    private double getDistance(int vertex) {
+        return (stamp[vertex] == query) ? distance[vertex] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Lowers the distance of a vertex if a shorter way to it was found.
+     * @param vertex index of the vertex
+     * @param newDistance length of the found way
+     * @param from predecessor on the found way
+     * @param level level of the clique edge from the predecessor, 0 for an edge of the graph
+     */
+    private void relax(int vertex, double newDistance, int from, int level) {
+        if(newDistance < getDistance(vertex)) {
+            stamp[vertex] = query;
+            distance[vertex] = newDistance;
+            predecessor[vertex] = from;
+            predecessorLevel[vertex] = (byte) level;
+            heap.push(vertex, newDistance);
+        }
+    }
+
+    /**
+     * Finds the shortest path between 2 vertices (customizes the index first if needed).
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @return array with the path (finish vertex first, start vertex last), null if the path doesn't exist
+     */
+    public int [] findPath(int startVertex, int finishVertex) {
+        if(!isCustomized()) {
+            customize();
+        }
+        query++;
+        if(query == 0) {
+            Arrays.fill(stamp, 0);
+            query = 1;
+        }
+        for(int level = 1; level <= cells.length; level++) {
+            startCell[level - 1] = getCell(level, startVertex);
+            finishCell[level - 1] = getCell(level, finishVertex);
+        }
+        settled = 0;
+        heap.count = 0;
+        relax(startVertex, 0.0, -1, 0);
+        while(heap.count > 0) {
+            double key = heap.peekKey();
+            int vertex = heap.pop();
+            if(key > distance[vertex]) {
+                continue;
+            }
+            settled++;
+            if(vertex == finishVertex) {
+                break;
+            }
+            int level = getQueryLevel(vertex);
+            if(level > 0) {
+                // clique edges to the other boundary vertices of the cell
+                int cellIndex = getCell(level, vertex);
+                Cell cell = cells[level - 1][cellIndex];
+                int [] boundary = cell.boundary;
+                int row = boundaryIndex[level - 1][vertex] * boundary.length;
+                for(int j = 0; j < boundary.length; j++) {
+                    double weight = cell.table[row + j];
+                    if(weight != Double.POSITIVE_INFINITY && boundary[j] != vertex) {
+                        relax(boundary[j], key + weight, vertex, level);
+                    }
+                }
+                for(int i = 0; i < 4; i++) {
+                    int neighbour = g.getNeighbour(vertex, i);
+                    if(neighbour != -1 && getCell(level, neighbour) != cellIndex) {
+                        relax(neighbour, key + g.getWeight(vertex, i), vertex, 0);
+                    }
+                }
+            } else {
+                for(int i = 0; i < 4; i++) {
+                    int neighbour = g.getNeighbour(vertex, i);
+                    if(neighbour != -1) {
+                        relax(neighbour, key + g.getWeight(vertex, i), vertex, 0);
+                    }
+                }
+            }
+        }
+        pathDistance = getDistance(finishVertex);
+        if(startVertex == finishVertex || pathDistance == Double.POSITIVE_INFINITY) {
+            // same result as the other searches
+            return null;
+        }
+        return unpack(startVertex, finishVertex);
+    }
+
+    /**
+     * Reads the path found by the last query, replacing clique edges with paths inside their cells.
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @return array with the path (finish vertex first, start vertex last)
+     */
+    private int [] unpack(int startVertex, int finishVertex) {
+        int [] path = new int [16];
+        int length = 0;
+        for(int vertex = finishVertex; vertex != startVertex; vertex = predecessor[vertex]) {
+            int level = predecessorLevel[vertex];
+            if(level == 0) {
+                if(length == path.length) {
+                    path = Arrays.copyOf(path, length * 2);
+                }
+                path[length++] = vertex;
+                continue;
+            }
+            Cell cell = cells[level - 1][getCell(level, vertex)];
+            double [] local = new double [cell.height * cell.width];
+            int [] localPredecessor = new int [local.length];
+            searchCell(cell, 0, null, predecessor[vertex], vertex, local, localPredecessor, new LazyHeap());
+            int localFrom = getLocal(cell, predecessor[vertex]);
+            for(int current = getLocal(cell, vertex); current != localFrom; current = localPredecessor[current]) {
+                if(length == path.length) {
+                    path = Arrays.copyOf(path, length * 2);
+                }
+                path[length++] = getGlobal(cell, current);
+            }
+        }
+        path = Arrays.copyOf(path, length + 1);
+        path[length] = startVertex;
+        return path;
+    }
+
+    /**
+     * Gets the length of the path found by the last query.
+     * @return distance, infinity if the path doesn't exist
+     */
+    public double getDistance() {
+        return pathDistance;
+    }
+
+    /**
+     * Gets the number of vertices settled by the last query.
+     * @return number of settled vertices
+     */
+    public int getSettledCount() {
+        return settled;
+    }
+
+    /**
+     * Gets the number of cells recomputed by the last customization.
+     * @return number of cells
+     */
+    public int getCustomizedCount() {
+        return customizedCount;
+    }
+
+    /**
+     * Gets the time of the last customization.
+     * @return time in milliseconds
+     */
+    public double getCustomizeMillis() {
+        return customizeNanos / 1e6;
+    }
+
+    /**
+     * Calculates the memory taken by the distance tables.
+     * @return size in bytes
+     */
+    public long getTableBytes() {
+        long bytes = 0;
+        for(Cell [] level : cells) {
+            for(Cell cell : level) {
+                bytes += (long) cell.boundary.length * cell.boundary.length * Double.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        int cellCount = 0;
+        for(Cell [] level : cells) {
+            cellCount += level.length;
+        }
+        return String.format("Overlay: %d levels, %d cells, %.1f MB of tables, last customization %d cells in %.1f ms",
+                cells.length, cellCount, getTableBytes() / 1e6, customizedCount, getCustomizeMillis());
+    }
+}
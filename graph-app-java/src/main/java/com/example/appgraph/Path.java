@@ -1,7 +1,11 @@
 package com.example.appgraph;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Class for finding the shortest path between vertices using the Dijkstry algorithm.
@@ -18,162 +22,332 @@ public class Path {
     double [] distance;
 
     /**
-     * Priority queue implementing a heap (distance as a priority factor for vertices).
+     * Number of vertices settled (removed from the priority queue) by the last search.
      */
-    private static class PriorityQueue {
-        /**
-         * Array implementing a heap, stores vertices' indexes.
-         */
-        int [] heap;
+    int settled;
 
+    /**
+     * Types of priority queues used by the searches.
+     */
+    public enum QueueType {
         /**
-         * Number of vertices currently on the heap.
+         * Chosen by the graph size and weight range.
          */
-        int count;
+        AUTO,
 
         /**
-         * Array of distances to each vertex from the start vertex (priority factor).
+         * Binary heap.
          */
-        double [] distance;
+        BINARY_HEAP,
 
         /**
-         * Array of each vertex's current index (position) in the heap array.
-         * (-1) if not on the heap.
+         * 4-ary heap.
          */
-        int [] position;
+        QUATERNARY_HEAP,
 
         /**
-         * Builds a priority queue based on the length of the existing distance array.
-         * @param distance existing distance array of (rows * columns) length
+         * Radix heap over the bits of the keys.
          */
-        PriorityQueue(double [] distance) {
-            this.distance = distance;
-            this.heap = new int [distance.length];
-            this.count = 0;
-            this.position = new int [distance.length];
-            Arrays.fill(this.position, -1);
-        }
+        RADIX_HEAP,
 
         /**
-         * Orders the heap from the bottom up.
-         * Used while adding a new element to the heap or changing an elements' priority.
-         * @param child index of the new (or updated) vertex in the heap
+         * Dial buckets as wide as the lowest weight (used only if the weight range is positive and narrow enough,
+         * otherwise a radix heap).
          */
-        void heapUp(int child) {
-            int parent, tmp;
+        BUCKETS
+    }
 
-            while(child > 0) {
-                parent = (child - 1) / 2;
+    /**
+     * Largest number of buckets per vertex for which AUTO chooses Dial buckets.
+     */
+    private static final double MAX_BUCKETS_PER_VERTEX = 0.25;
 
-                if(distance[heap[parent]] <= distance[heap[child]]) {
-                    return;
-                }
+    /**
+     * Number of vertices from which AUTO chooses another queue than a binary heap.
+     */
+    private static final int MONOTONE_QUEUE_SIZE = 1 << 12;
+
+    /**
+     * Number of vertices from which shortest path trees are computed in parallel.
+     */
+    private static final int PARALLEL_TREE_SIZE = 1 << 18;
 
-                tmp = heap[parent];
-                heap[parent] = heap[child];
-                heap[child] = tmp;
+    /**
+     * Type of the priority queue used by the searches.
+     */
+    private final QueueType queueType;
 
-                position[heap[parent]] = parent;
-                position[heap[child]] = child;
+    /**
+     * Handle for reading and writing the settled flags of a bidirectional search shared by 2 threads.
+     */
+    private static final VarHandle SETTLED = MethodHandles.arrayElementVarHandle(boolean [].class);
 
-                child = parent;
-            }
-        }
+    /**
+     * Length of the shortest path found so far by the bidirectional search.
+     */
+    private volatile double best;
+
+    /**
+     * Last vertex of the forward part of the best path found by the bidirectional search.
+     */
+    private int meetForward;
 
+    /**
+     * First vertex of the backward part of the best path found by the bidirectional search
+     * (the same as meetForward if both searches met in a vertex).
+     */
+    private int meetBackward;
+
+    /**
+     * One direction of the bidirectional search: a Dijkstry search from the start (forward) or finish (backward) vertex.
+     */
+    private class Frontier {
         /**
-         * Orders the heap from the root down.
-         * Used when removing an element from the heap.
+         * Array of distances to each vertex from the vertex the search started from.
          */
-        void heapDown() {
-            int parent = 0, tmp;
-            int child = 1;
+        final double [] distance;
 
-            while(child < count) {
-                if (((child + 1) < count) && (distance[heap[child + 1]] < distance[heap[child]])) {
-                    child++;
-                }
-                if (distance[heap[parent]] <= distance[heap[child]]) {
-                    return;
-                }
+        /**
+         * Array of predecessors for each vertex (successors on the path for the backward search).
+         */
+        final int [] predecessor;
+
+        /**
+         * Array of flags of vertices already settled by the search.
+         */
+        final boolean [] settledFlags;
+
+        /**
+         * Priority queue of the search.
+         */
+        final VertexQueue pq;
 
-                tmp = heap[parent];
-                heap[parent] = heap[child];
-                heap[child] = tmp;
+        /**
+         * True for the search from the start vertex, false for the search from the finish vertex.
+         */
+        final boolean forward;
 
-                position[heap[parent]] = parent;
-                position[heap[child]] = child;
+        /**
+         * Number of vertices settled by the search.
+         */
+        int settled;
 
-                parent = child;
-                child = 2 * parent + 1;
-            }
+        /**
+         * Starts a search.
+         * @param distance distance array filled with infinity
+         * @param predecessor predecessor array filled with (-1)
+         * @param pq empty priority queue with the distance array as keys
+         * @param forward true for the search from the start vertex
+         * @param vertex vertex from which the search starts
+         */
+        Frontier(double [] distance, int [] predecessor, VertexQueue pq, boolean forward, int vertex) {
+            this.distance = distance;
+            this.predecessor = predecessor;
+            this.settledFlags = new boolean [distance.length];
+            this.pq = pq;
+            this.forward = forward;
+            distance[vertex] = 0.0;
+            pq.push(vertex, 0.0);
+        }
+
+        /**
+         * Checks if the vertex was settled by this search.
+         * @param vertex index of the vertex
+         * @param parallel true if the searches run on 2 threads
+         * @return true or false
+         */
+        boolean isSettled(int vertex, boolean parallel) {
+            return parallel ? (boolean) SETTLED.getVolatile(settledFlags, vertex) : settledFlags[vertex];
+        }
+
+        /**
+         * Checks if the vertex can be used to connect the 2 searches.
+         * Sequentially any vertex reached by the other search is used, on 2 threads only settled ones
+         * (their distances are final, so reading them from the other thread is safe).
+         * @param vertex index of the vertex
+         * @param parallel true if the searches run on 2 threads
+         * @return true or false
+         */
+        boolean isReached(int vertex, boolean parallel) {
+            return parallel ? isSettled(vertex, true) : (distance[vertex] != Double.POSITIVE_INFINITY);
         }
 
         /**
-         * Adds a new vertex to the heap or updates the position of a vertex already on the heap.
-         * @param vertex index of the added (or updated) vertex
-         * @param distance distance of the added (or updated) vertex from the start vertex
+         * Settles the vertex on top of the priority queue, relaxes its edges and updates the best path.
+         * @param g graph
+         * @param other search in the opposite direction
+         * @param parallel true if the searches run on 2 threads
          */
-        void push(int vertex, double distance) {
-            this.distance[vertex] = distance;
-            if(position[vertex] == -1) {
-                heap[count] = vertex;
-                position[vertex] = count;
-                count++;
+        void settleNext(Graph g, Frontier other, boolean parallel) {
+            int currentVertex = pq.pop();
+            settled++;
+            if(parallel) {
+                SETTLED.setVolatile(settledFlags, currentVertex, true);
+            } else {
+                settledFlags[currentVertex] = true;
+            }
+            if(other.isReached(currentVertex, parallel)) {
+                offer(distance[currentVertex] + other.distance[currentVertex], currentVertex, currentVertex);
+            }
+            for(int i = 0; i < 4; i++) {
+                int neighbour = g.getNeighbour(currentVertex, i);
+                if(neighbour != -1) {
+                    double newDistance = distance[currentVertex] + g.getWeight(currentVertex, i);
+                    if(distance[neighbour] > newDistance) {
+                        distance[neighbour] = newDistance;
+                        predecessor[neighbour] = currentVertex;
+                        pq.push(neighbour, distance[neighbour]);
+                    }
+                    if(other.isReached(neighbour, parallel)) {
+                        offer(newDistance + other.distance[neighbour], currentVertex, neighbour);
+                    }
+                }
             }
-            heapUp(position[vertex]);
         }
 
         /**
-         * Removes a vertex of the highest priority from the heap.
-         * @return the removed vertex
+         * Saves a path connecting the 2 searches if it's shorter than the best one found so far.
+         * @param length length of the path
+         * @param vertex last vertex of the path reached by this search
+         * @param otherVertex first vertex of the path reached by the other search
          */
-        int pop() {
-            int popped = heap[0];
-            count--;
-            heap[0] = heap[count];
-            position[popped] = -1;
-            position[heap[0]] = 0;
-            heapDown();
-            return popped;
+        void offer(double length, int vertex, int otherVertex) {
+            synchronized(Path.this) {
+                if(length < best) {
+                    best = length;
+                    meetForward = forward ? vertex : otherVertex;
+                    meetBackward = forward ? otherVertex : vertex;
+                }
+            }
         }
 
         /**
-         * Checks if the priority queue is empty.
-         * @return true or false
+         * Runs the search on its own until no shorter path can be found through its unsettled vertices
+         * (every vertex closer than half the best path length is settled by one of the searches).
+         * @param g graph
+         * @param other search in the opposite direction (running on another thread)
          */
-        boolean isEmpty() {
-            return (count == 0);
+        void runParallel(Graph g, Frontier other) {
+            while(!pq.isEmpty() && distance[pq.peek()] < best / 2) {
+                settleNext(g, other, true);
+            }
         }
     }
 
     /**
-     * Initially makes empty predecessor and distance arrays.
+     * Initially makes empty predecessor and distance arrays, searches with a priority queue chosen automatically.
      * @param g graph in which we want to find the shortest path
      */
     public Path(Graph g) {
+        this(g, QueueType.AUTO);
+    }
+
+    /**
+     * Initially makes empty predecessor and distance arrays, searches with a chosen type of priority queue.
+     * @param g graph in which we want to find the shortest path
+     * @param queueType type of the priority queue
+     */
+    public Path(Graph g, QueueType queueType) {
+        this.queueType = queueType;
         this.predecessor = new int [g.getGraphSize()];
         Arrays.fill(this.predecessor, -1);
         this.distance = new double [g.getGraphSize()];
         Arrays.fill(this.distance, Double.POSITIVE_INFINITY);
     }
 
+    /**
+     * Chooses the type of the priority queue for a graph.
+     * On larger graphs Dial buckets are used if their number stays small, a 4-ary heap otherwise,
+     * on small ones the binary heap is as fast and needs no extra memory.
+     * @param g graph
+     * @return type of the priority queue (never AUTO)
+     */
+    QueueType getQueueType(Graph g) {
+        if(queueType == QueueType.BUCKETS) {
+            return hasBucketRange(g) ? QueueType.BUCKETS : QueueType.RADIX_HEAP;
+        }
+        if(queueType != QueueType.AUTO) {
+            return queueType;
+        }
+        if(g.getGraphSize() < MONOTONE_QUEUE_SIZE) {
+            return QueueType.BINARY_HEAP;
+        }
+        if(hasBucketRange(g) && BucketQueue.getBucketCount(g.getWeightLower(), getBucketSpan(g))
+                <= g.getGraphSize() * MAX_BUCKETS_PER_VERTEX) {
+            return QueueType.BUCKETS;
+        }
+        return QueueType.QUATERNARY_HEAP;
+    }
+
+    /**
+     * Checks if the weight range allows Dial buckets (the lowest weight as the bucket width).
+     * @param g graph
+     * @return true or false
+     */
+    private static boolean hasBucketRange(Graph g) {
+        double weightLower = g.getWeightLower();
+        return weightLower > 0 && !Double.isInfinite(weightLower) && g.getWeightUpper() >= weightLower;
+    }
+
+    /**
+     * Calculates the largest difference between a key in the queue and the last removed key:
+     * the highest weight plus the largest change of the A* heuristic along an edge.
+     * @param g graph
+     * @return span of the keys
+     */
+    private static double getBucketSpan(Graph g) {
+        return g.getWeightUpper() + g.getWeightLower();
+    }
+
+    /**
+     * Creates a priority queue of the chosen type.
+     * @param g graph
+     * @param key key array of the queue
+     * @return empty priority queue
+     */
+    private VertexQueue newQueue(Graph g, double [] key) {
+        switch(getQueueType(g)) {
+            case QUATERNARY_HEAP:
+                return new QuaternaryHeapQueue(key);
+            case RADIX_HEAP:
+                return new RadixHeapQueue(key);
+            case BUCKETS:
+                return new BucketQueue(key, g.getWeightLower(), getBucketSpan(g));
+            default:
+                return new BinaryHeapQueue(key);
+        }
+    }
+
+    /**
+     * Creates a binary or 4-ary heap (by the chosen type of the priority queue), for keys which may drop
+     * below the last removed key: landmark bounds change by up to 2 weights along an edge
+     * and aren't exactly consistent after rounding, which monotone queues don't allow.
+     * @param g graph
+     * @param key key array of the queue
+     * @return empty priority queue
+     */
+    private VertexQueue newHeapQueue(Graph g, double [] key) {
+        return (getQueueType(g) == QueueType.BINARY_HEAP) ? new BinaryHeapQueue(key) : new QuaternaryHeapQueue(key);
+    }
+
     /**
      * Performs the Dijkstry algorithm on a given graph, saves the results in the predecessor and distance arrays.
      * @param g graph
      * @param startVertex vertex from which the path starts
      */
     private void dijkstry(Graph g, int startVertex) {
-        PriorityQueue pq = new PriorityQueue(distance);
+        VertexQueue pq = newQueue(g, distance);
 
         distance[startVertex] = 0.0;
         pq.push(startVertex, distance[startVertex]);
 
         while(!pq.isEmpty()) {
             int currentVertex = pq.pop();
+            settled++;
             for(int i = 0; i < 4; i++) {
-                int neighbour = g.getVertex(currentVertex).getNeighbour(i);
+                int neighbour = g.getNeighbour(currentVertex, i);
                 if(neighbour != -1) {
-                    double newDistance = distance[currentVertex] + g.getVertex(currentVertex).getWeight(i);
+                    double newDistance = distance[currentVertex] + g.getWeight(currentVertex, i);
                     if(distance[neighbour] > newDistance) {
                         distance[neighbour] = newDistance;
                         predecessor[neighbour] = currentVertex;
@@ -184,6 +358,87 @@ public class Path {
         }
     }
 
+    /**
+     * Calculates the A* heuristic: a lower bound of the distance between 2 vertices.
+     * Every step on the grid costs at least the lowest weight, so the Manhattan distance times that weight
+     * is admissible and consistent (scaled down slightly to absorb floating point rounding of path sums).
+     * @param g graph
+     * @param vertex vertex from which the distance is estimated
+     * @param finishVertex vertex to which the distance is estimated
+     * @return lower bound of the distance
+     */
+    static double estimate(Graph g, int vertex, int finishVertex) {
+        double minWeight = g.getWeightLower();
+        if(!(minWeight > 0) || Double.isInfinite(minWeight)) {
+            // no edges
+            return 0.0;
+        }
+        int columns = g.getColumns();
+        int steps = Math.abs(vertex / columns - finishVertex / columns) + Math.abs(vertex % columns - finishVertex % columns);
+        return minWeight * steps * (1 - 1e-9);
+    }
+
+    /**
+     * Performs the A* algorithm on a given graph until the finish vertex is settled,
+     * saves the results in the predecessor and distance arrays.
+     * @param g graph
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @param landmarks landmark index giving the heuristic, null for the Manhattan bound
+     */
+    private void aStar(Graph g, int startVertex, int finishVertex, Landmarks landmarks) {
+        // the queue orders vertices by (distance from start + estimated distance to finish)
+        double [] key = new double [distance.length];
+        VertexQueue pq = (landmarks == null) ? newQueue(g, key) : newHeapQueue(g, key);
+
+        double startEstimate = estimate(g, landmarks, startVertex, finishVertex);
+        if(startEstimate == Double.POSITIVE_INFINITY) {
+            // landmarks show the finish vertex isn't reachable
+            return;
+        }
+        distance[startVertex] = 0.0;
+        pq.push(startVertex, startEstimate);
+
+        while(!pq.isEmpty()) {
+            int currentVertex = pq.pop();
+            settled++;
+            if(currentVertex == finishVertex) {
+                return;
+            }
+            for(int i = 0; i < 4; i++) {
+                int neighbour = g.getNeighbour(currentVertex, i);
+                if(neighbour != -1) {
+                    double newDistance = distance[currentVertex] + g.getWeight(currentVertex, i);
+                    if(distance[neighbour] > newDistance) {
+                        distance[neighbour] = newDistance;
+                        predecessor[neighbour] = currentVertex;
+                        pq.push(neighbour, newDistance + estimate(g, landmarks, neighbour, finishVertex));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates the A* heuristic with landmarks or with the Manhattan bound only.
+     * @param g graph
+     * @param landmarks landmark index, null for the Manhattan bound
+     * @param vertex vertex from which the distance is estimated
+     * @param finishVertex vertex to which the distance is estimated
+     * @return lower bound of the distance
+     */
+    private static double estimate(Graph g, Landmarks landmarks, int vertex, int finishVertex) {
+        return (landmarks == null) ? estimate(g, vertex, finishVertex) : landmarks.estimate(vertex, finishVertex);
+    }
+
+    /**
+     * Gets the number of vertices settled by the last search (to compare the work done by different searches).
+     * @return number of settled vertices
+     */
+    public int getSettledCount() {
+        return settled;
+    }
+
     /**
      * Finds the shortest path between 2 chosen vertices.
      * @param g graph
@@ -194,7 +449,142 @@ public class Path {
      */
     public ArrayList<Integer> findPath(Graph g, int startVertex, int finishVertex) {
         dijkstry(g, startVertex);
+        return getPath(startVertex, finishVertex);
+    }
 
+    /**
+     * Finds the shortest paths from a vertex to all vertices, saves them in the predecessor and distance arrays.
+     * Large graphs are searched with parallel delta-stepping on the common pool (if it has more than 1 thread),
+     * smaller ones with the Dijkstry algorithm.
+     * Distances are the same either way, of equally short paths delta-stepping may choose another predecessor.
+     * @param g graph
+     * @param startVertex vertex from which the paths start
+     */
+    public void findTree(Graph g, int startVertex) {
+        if(g.getGraphSize() >= PARALLEL_TREE_SIZE && ForkJoinPool.getCommonPoolParallelism() > 1
+                && DeltaStepping.canSearch(g)) {
+            findTree(g, startVertex, ForkJoinPool.commonPool());
+        } else {
+            dijkstry(g, startVertex);
+        }
+    }
+
+    /**
+     * Finds the shortest paths from a vertex to all vertices with parallel delta-stepping,
+     * saves them in the predecessor and distance arrays.
+     * @param g graph (with positive weights)
+     * @param startVertex vertex from which the paths start
+     * @param pool pool running the search
+     */
+    void findTree(Graph g, int startVertex, ForkJoinPool pool) {
+        settled = new DeltaStepping(g, pool).run(startVertex, distance, predecessor);
+    }
+
+    /**
+     * Finds the shortest path between 2 chosen vertices with the A* algorithm
+     * (stops as soon as the finish vertex is reached, explores mostly towards it).
+     * @param g graph
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @return ArrayList with the path saved (finish vertex as the 0th element, start vertex as the last element),
+     * null if the path doesn't exist
+     */
+    public ArrayList<Integer> findPathAStar(Graph g, int startVertex, int finishVertex) {
+        aStar(g, startVertex, finishVertex, null);
+        return getPath(startVertex, finishVertex);
+    }
+
+    /**
+     * Finds the shortest path between 2 chosen vertices with the A* algorithm guided by landmarks
+     * (tighter bounds than the Manhattan distance, especially on split graphs).
+     * @param g graph
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @param landmarks landmark index computed for the graph in its current state
+     * @return ArrayList with the path saved (finish vertex as the 0th element, start vertex as the last element),
+     * null if the path doesn't exist
+     */
+    public ArrayList<Integer> findPathAStar(Graph g, int startVertex, int finishVertex, Landmarks landmarks) {
+        if(!landmarks.isCurrent(g)) {
+            throw new IllegalArgumentException("Landmarks computed for another graph or an older version of it.");
+        }
+        aStar(g, startVertex, finishVertex, landmarks);
+        return getPath(startVertex, finishVertex);
+    }
+
+    /**
+     * Finds the shortest path between 2 chosen vertices with a bidirectional Dijkstry search:
+     * searches from both vertices meet in the middle (grid edges are symmetric).
+     * @param g graph
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @param parallel true to run the 2 searches on separate threads
+     * @return ArrayList with the path saved (finish vertex as the 0th element, start vertex as the last element),
+     * null if the path doesn't exist
+     */
+    public ArrayList<Integer> findPathBidirectional(Graph g, int startVertex, int finishVertex, boolean parallel) {
+        if(startVertex == finishVertex) {
+            // same result as findPath
+            return null;
+        }
+        best = Double.POSITIVE_INFINITY;
+        double [] backwardDistance = new double [distance.length];
+        Arrays.fill(backwardDistance, Double.POSITIVE_INFINITY);
+        int [] successor = new int [distance.length];
+        Arrays.fill(successor, -1);
+        Frontier forward = new Frontier(distance, predecessor, newQueue(g, distance), true, startVertex);
+        Frontier backward = new Frontier(backwardDistance, successor, newQueue(g, backwardDistance), false,
+                finishVertex);
+
+        if(parallel) {
+            ForkJoinTask<?> task = ForkJoinPool.commonPool().submit(() -> backward.runParallel(g, forward));
+            forward.runParallel(g, backward);
+            task.join();
+        } else {
+            while(!forward.pq.isEmpty() && !backward.pq.isEmpty()) {
+                double forwardKey = distance[forward.pq.peek()];
+                double backwardKey = backwardDistance[backward.pq.peek()];
+                if(forwardKey + backwardKey >= best) {
+                    break;
+                }
+                // settle the closer of the 2 queue minima, so both searches grow to about the same radius
+                if(forwardKey <= backwardKey) {
+                    forward.settleNext(g, backward, false);
+                } else {
+                    backward.settleNext(g, forward, false);
+                }
+            }
+        }
+        settled = forward.settled + backward.settled;
+
+        if(best == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        // link the backward part of the path into the predecessor and distance arrays
+        int previousVertex = meetForward;
+        int currentVertex = (meetBackward == meetForward) ? successor[meetBackward] : meetBackward;
+        while(currentVertex != -1) {
+            predecessor[currentVertex] = previousVertex;
+            for(int i = 0; i < 4; i++) {
+                if(g.getNeighbour(previousVertex, i) == currentVertex) {
+                    distance[currentVertex] = distance[previousVertex] + g.getWeight(previousVertex, i);
+                    break;
+                }
+            }
+            previousVertex = currentVertex;
+            currentVertex = successor[currentVertex];
+        }
+        return getPath(startVertex, finishVertex);
+    }
+
+    /**
+     * Reads the path found by the last search from the predecessor array.
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @return ArrayList with the path saved (finish vertex as the 0th element, start vertex as the last element),
+     * null if the path doesn't exist
+     */
+    private ArrayList<Integer> getPath(int startVertex, int finishVertex) {
         if(predecessor[finishVertex] == -1) {
             // path doesn't exist
             return null;
@@ -0,0 +1,245 @@
+package com.example.appgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class for answering many shortest path queries at once.
+ * Queries are grouped by their start vertex and each group is answered by 1 search (stopped when all its finish
+ * vertices are settled). Groups are shared by worker tasks on the common ForkJoinPool, each with its own PathEngine.
+ */
+public class PathBatch {
+    /**
+     * Maximum number of queries in a batch (the query arrays are int-indexed).
+     */
+    public static final int MAX_QUERIES = Integer.MAX_VALUE - 8;
+
+    /**
+     * Results of a batch of queries.
+     */
+    public static class Result {
+        /**
+         * Distance of each query, infinity if the path doesn't exist.
+         */
+        private final double [] distances;
+
+        /**
+         * Path of each query (finish vertex first, start vertex last), null if not requested or doesn't exist.
+         */
+        private final int [][] paths;
+
+        /**
+         * Number of searches done (distinct start vertices).
+         */
+        private int searches;
+
+        /**
+         * Time of answering the queries in nanoseconds.
+         */
+        private long nanos;
+
+        /**
+         * Creates empty results.
+         * @param queries number of queries
+         * @param withPaths true if the paths are saved
+         */
+        Result(int queries, boolean withPaths) {
+            distances = new double [queries];
+            paths = withPaths ? new int [queries][] : null;
+        }
+
+        /**
+         * Gets the number of queries.
+         * @return number of queries
+         */
+        public int getQueryCount() {
+            return distances.length;
+        }
+
+        /**
+         * Gets the length of the shortest path of a query.
+         * @param query index of the query
+         * @return distance, infinity if the path doesn't exist
+         */
+        public double getDistance(int query) {
+            return distances[query];
+        }
+
+        /**
+         * Gets the shortest path of a query.
+         * @param query index of the query
+         * @return array with the path (finish vertex first, start vertex last),
+         * null if the paths weren't requested or the path doesn't exist
+         */
+        public int [] getPath(int query) {
+            return (paths == null) ? null : paths[query];
+        }
+
+        /**
+         * Gets the number of searches done (distinct start vertices).
+         * @return number of searches
+         */
+        public int getSearchCount() {
+            return searches;
+        }
+
+        /**
+         * Gets the time of answering the queries in milliseconds.
+         * @return time in milliseconds
+         */
+        public double getMillis() {
+            return nanos / 1e6;
+        }
+
+        /**
+         * Gets the number of queries answered per second.
+         * @return queries per second
+         */
+        public double getQueriesPerSecond() {
+            return (nanos == 0) ? 0.0 : distances.length / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Answered %d queries with %d searches in %.1f ms (%.1f queries/s)",
+                    distances.length, searches, getMillis(), getQueriesPerSecond());
+        }
+    }
+
+    /**
+     * Graph in which paths are searched.
+     */
+    private final Graph g;
+
+    /**
+     * Creates a batch query runner for a graph.
+     * @param g graph in which paths are searched
+     */
+    public PathBatch(Graph g) {
+        this.g = g;
+    }
+
+    /**
+     * Finds the shortest paths of a batch of queries (start vertex, finish vertex).
+     * @param startVertices start vertex of each query
+     * @param finishVertices finish vertex of each query
+     * @param withPaths true to save the paths, false for the distances only
+     * @return results of the queries
+     */
+    public Result findPaths(int [] startVertices, int [] finishVertices, boolean withPaths) {
+        if(startVertices.length != finishVertices.length) {
+            throw new IllegalArgumentException("Numbers of start and finish vertices differ.");
+        }
+        for(int i = 0; i < startVertices.length; i++) {
+            checkVertex(startVertices[i]);
+            checkVertex(finishVertices[i]);
+        }
+        long begin = System.nanoTime();
+        Result result = new Result(startVertices.length, withPaths);
+
+        // sort the queries by start vertex: (start vertex, query index) packed in a long
+        long [] order = new long [startVertices.length];
+        for(int i = 0; i < order.length; i++) {
+            order[i] = ((long) startVertices[i] << 32) | i;
+        }
+        Arrays.sort(order);
+        List<Integer> groupStarts = new ArrayList<>();
+        for(int i = 0; i < order.length; i++) {
+            if(i == 0 || (order[i] >>> 32) != (order[i - 1] >>> 32)) {
+                groupStarts.add(i);
+            }
+        }
+        groupStarts.add(order.length);
+        int groups = groupStarts.size() - 1;
+        result.searches = groups;
+
+        AtomicInteger nextGroup = new AtomicInteger();
+        Runnable worker = () -> {
+            PathEngine engine = new PathEngine(g);
+            int group;
+            while((group = nextGroup.getAndIncrement()) < groups) {
+                answerGroup(engine, order, finishVertices, groupStarts.get(group), groupStarts.get(group + 1), result);
+            }
+        };
+        int workers = Math.min(groups, ForkJoinPool.getCommonPoolParallelism());
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for(int i = 1; i < workers; i++) {
+            tasks.add(ForkJoinPool.commonPool().submit(worker));
+        }
+        if(groups > 0) {
+            // the calling thread works too
+            worker.run();
+        }
+        for(ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        result.nanos = System.nanoTime() - begin;
+        return result;
+    }
+
+    /**
+     * Finds the lengths of the shortest paths between all pairs of vertices from 2 sets.
+     * @param startVertices start vertices (rows of the matrix)
+     * @param finishVertices finish vertices (columns of the matrix)
+     * @return matrix of distances, infinity if the path doesn't exist
+     */
+    public double [][] findDistanceMatrix(int [] startVertices, int [] finishVertices) {
+        if((long) startVertices.length * finishVertices.length > MAX_QUERIES) {
+            throw new IllegalArgumentException("Distance matrix too large.");
+        }
+        int queries = startVertices.length * finishVertices.length;
+        int [] starts = new int [queries];
+        int [] finishes = new int [queries];
+        for(int i = 0; i < startVertices.length; i++) {
+            Arrays.fill(starts, i * finishVertices.length, (i + 1) * finishVertices.length, startVertices[i]);
+            System.arraycopy(finishVertices, 0, finishes, i * finishVertices.length, finishVertices.length);
+        }
+        Result result = findPaths(starts, finishes, false);
+        double [][] matrix = new double [startVertices.length][];
+        for(int i = 0; i < startVertices.length; i++) {
+            matrix[i] = Arrays.copyOfRange(result.distances, i * finishVertices.length, (i + 1) * finishVertices.length);
+        }
+        return matrix;
+    }
+
+    /**
+     * Checks if a vertex belongs to the graph.
+     * @param vertex index of the vertex
+     */
+    private void checkVertex(int vertex) {
+        if(vertex < 0 || vertex >= g.getGraphSize()) {
+            throw new IllegalArgumentException("Vertex " + vertex + " out of range.");
+        }
+    }
+
+    /**
+     * Answers the queries of 1 start vertex with 1 search.
+     * @param engine path engine of the calling thread
+     * @param order queries sorted by start vertex ((start vertex, query index) packed in a long)
+     * @param finishVertices finish vertex of each query
+     * @param first index of the 1st query of the group in the order array
+     * @param last index of the query after the last one of the group
+     * @param result results of the queries
+     */
+    private void answerGroup(PathEngine engine, long [] order, int [] finishVertices, int first, int last,
+                             Result result) {
+        int startVertex = (int) (order[first] >>> 32);
+        int [] groupFinishVertices = new int [last - first];
+        for(int i = first; i < last; i++) {
+            groupFinishVertices[i - first] = finishVertices[(int) order[i]];
+        }
+        engine.findPaths(startVertex, groupFinishVertices);
+        for(int i = first; i < last; i++) {
+            int query = (int) order[i];
+            int finishVertex = finishVertices[query];
+            result.distances[query] = engine.getDistance(finishVertex);
+            if(result.paths != null) {
+                result.paths[query] = engine.getPathArray(finishVertex);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.appgraph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Reusable engine for shortest path queries on 1 graph.
+ * The per-vertex arrays (24 bytes per vertex with the heap) are allocated once; a query only touches the vertices
+ * it reaches, and the next query resets just those entries from the list of reached vertices.
+ * Searches use A* (the same heuristic as Path.findPathAStar) and stop as soon as the finish vertex is settled,
+ * searches for many finish vertices use the Dijkstry algorithm and stop when all of them are settled.
+ * The path from a vertex to itself is the singleton path [start] of length 0, whichever method finds it.
+ * An engine isn't thread-safe.
+ */
+public class PathEngine {
+    /**
+     * Graph in which paths are searched.
+     */
+    private final Graph g;
+
+    /**
+     * Array of distances to each vertex from the start vertex, infinity if not reached.
+     */
+    private final double [] distance;
+
+    /**
+     * Array of predecessors for each vertex, (-1) if not reached or the start vertex.
+     */
+    private final int [] predecessor;
+
+    /**
+     * Vertices touched (reached) by the last query, grown when full.
+     */
+    private int [] touched = new int [1024];
+
+    /**
+     * Number of vertices touched by the last query.
+     */
+    private int touchedCount;
+
+    /**
+     * Heap of the vertices to settle, by priority (distance + estimated distance to the finish vertex).
+     */
+    private final QuaternaryHeapQueue heap;
+
+    /**
+     * Number of the current query.
+     */
+    private int query;
+
+    /**
+     * Vertices of the last path found (finish vertex first), grown when a longer path is found.
+     */
+    private int [] path = new int [64];
+
+    /**
+     * Number of vertices of the last path found.
+     */
+    private int pathLength;
+
+    /**
+     * Number of the query in which each vertex is a finish vertex not settled yet (created on first use).
+     */
+    private int [] pending;
+
+    /**
+     * Number of vertices settled by the last query.
+     */
+    private int settled;
+
+    /**
+     * Creates an engine for a graph.
+     * @param g graph in which paths are searched
+     */
+    public PathEngine(Graph g) {
+        this.g = g;
+        int size = g.getGraphSize();
+        distance = new double [size];
+        predecessor = new int [size];
+        Arrays.fill(distance, Double.POSITIVE_INFINITY);
+        Arrays.fill(predecessor, -1);
+        heap = new QuaternaryHeapQueue(new double [size]);
+    }
+
+    /**
+     * Prepares the arrays for a new query: resets the entries of the vertices touched by the last one.
+     */
+    private void nextQuery() {
+        query++;
+        if(query == 0) {
+            // query numbers wrapped around, forget the pending marks
+            if(pending != null) {
+                Arrays.fill(pending, 0);
+            }
+            query = 1;
+        }
+        for(int i = 0; i < touchedCount; i++) {
+            distance[touched[i]] = Double.POSITIVE_INFINITY;
+            predecessor[touched[i]] = -1;
+        }
+        touchedCount = 0;
+        heap.clear();
+        settled = 0;
+        pathLength = 0;
+    }
+
+    /**
+     * Records a vertex reached for the 1st time in the current query, so the next query resets its entries.
+     * @param vertex index of the vertex
+     */
+    private void touch(int vertex) {
+        if(touchedCount == touched.length) {
+            touched = Arrays.copyOf(touched, (int) Math.min(2L * touched.length, distance.length));
+        }
+        touched[touchedCount++] = vertex;
+    }
+
+    /**
+     * Finds the shortest path between 2 vertices.
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @return read-only view of the path (finish vertex first, start vertex last), valid until the next query,
+     * null if the path doesn't exist
+     */
+    public IntBuffer findPath(int startVertex, int finishVertex) {
+        if(search(startVertex, finishVertex)) {
+            return IntBuffer.wrap(path, 0, pathLength).slice().asReadOnlyBuffer();
+        }
+        return null;
+    }
+
+    /**
+     * Finds the shortest path between 2 vertices.
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @return new array with the path (finish vertex first, start vertex last), null if the path doesn't exist
+     */
+    public int [] findPathArray(int startVertex, int finishVertex) {
+        if(search(startVertex, finishVertex)) {
+            int [] copy = new int [pathLength];
+            System.arraycopy(path, 0, copy, 0, pathLength);
+            return copy;
+        }
+        return null;
+    }
+
+    /**
+     * Finds the shortest paths from a vertex to a group of vertices.
+     * The distances and paths are then read with getDistance and getPathArray.
+     * @param startVertex vertex from which the paths start
+     * @param finishVertices vertices to which the paths lead
+     * @return number of finish vertices reached (counted once each)
+     */
+    public int findPaths(int startVertex, int [] finishVertices) {
+        nextQuery();
+        if(pending == null) {
+            pending = new int [distance.length];
+        }
+        int remaining = 0;
+        for(int vertex : finishVertices) {
+            if(pending[vertex] != query) {
+                pending[vertex] = query;
+                remaining++;
+            }
+        }
+        int reached = 0;
+        touch(startVertex);
+        distance[startVertex] = 0.0;
+        heap.push(startVertex, 0.0);
+
+        while(!heap.isEmpty() && reached < remaining) {
+            int currentVertex = heap.pop();
+            settled++;
+            if(pending[currentVertex] == query) {
+                pending[currentVertex] = 0;
+                reached++;
+            }
+            for(int i = 0; i < 4; i++) {
+                int neighbour = g.getNeighbour(currentVertex, i);
+                if(neighbour != -1) {
+                    double newDistance = distance[currentVertex] + g.getWeight(currentVertex, i);
+                    if(distance[neighbour] > newDistance) {
+                        if(distance[neighbour] == Double.POSITIVE_INFINITY) {
+                            touch(neighbour);
+                        }
+                        distance[neighbour] = newDistance;
+                        predecessor[neighbour] = currentVertex;
+                        heap.push(neighbour, newDistance);
+                    }
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Reads the path to a finish vertex of the last query from the predecessor array.
+     * @param finishVertex vertex to which the path leads (settled by the last query)
+     * @return new array with the path (finish vertex first, start vertex last), null if the path doesn't exist
+     */
+    public int [] getPathArray(int finishVertex) {
+        if(distance[finishVertex] == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        int length = 0;
+        for(int vertex = finishVertex; vertex != -1; vertex = predecessor[vertex]) {
+            length++;
+        }
+        int [] copy = new int [length];
+        int i = 0;
+        for(int vertex = finishVertex; vertex != -1; vertex = predecessor[vertex]) {
+            copy[i++] = vertex;
+        }
+        return copy;
+    }
+
+    /**
+     * Gets the distance of a vertex from the start vertex of the last query
+     * (exact for the vertices of the path and the settled finish vertices, an upper bound for other vertices).
+     * @param vertex index of the vertex
+     * @return distance, infinity if not reached
+     */
+    public double getDistance(int vertex) {
+        return distance[vertex];
+    }
+
+    /**
+     * Gets the number of vertices settled by the last query.
+     * @return number of settled vertices
+     */
+    public int getSettledCount() {
+        return settled;
+    }
+
+    /**
+     * Performs the A* search and saves the path in the path array.
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @return true if the path exists
+     */
+    private boolean search(int startVertex, int finishVertex) {
+        nextQuery();
+        touch(startVertex);
+        distance[startVertex] = 0.0;
+        heap.push(startVertex, Path.estimate(g, startVertex, finishVertex));
+
+        while(!heap.isEmpty()) {
+            int currentVertex = heap.pop();
+            settled++;
+            if(currentVertex == finishVertex) {
+                int vertex = finishVertex;
+                while(vertex != -1) {
+                    if(pathLength == path.length) {
+                        path = Arrays.copyOf(path, 2 * pathLength);
+                    }
+                    path[pathLength++] = vertex;
+                    vertex = predecessor[vertex];
+                }
+                return true;
+            }
+            for(int i = 0; i < 4; i++) {
+                int neighbour = g.getNeighbour(currentVertex, i);
+                if(neighbour != -1) {
+                    double newDistance = distance[currentVertex] + g.getWeight(currentVertex, i);
+                    if(distance[neighbour] > newDistance) {
+                        if(distance[neighbour] == Double.POSITIVE_INFINITY) {
+                            touch(neighbour);
+                        }
+                        distance[neighbour] = newDistance;
+                        predecessor[neighbour] = currentVertex;
+                        heap.push(neighbour, newDistance + Path.estimate(g, neighbour, finishVertex));
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
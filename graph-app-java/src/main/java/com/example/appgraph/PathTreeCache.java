@@ -0,0 +1,274 @@
+package com.example.appgraph;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of shortest path trees, so repeated queries from the same start vertex only walk the predecessor array.
+ * Trees are keyed by the graph (identity), its version and the start vertex: any change of the graph makes
+ * its trees outdated, they are dropped the next time the cache is used.
+ * The least recently used trees are evicted when the trees take more memory than the budget.
+ * A tree takes 12 bytes per vertex; when 1 tree of a graph doesn't fit in the budget, paths are found
+ * with the early-stopping search of the graph's PathEngine instead and nothing is cached.
+ */
+public class PathTreeCache {
+    /**
+     * Default memory budget of the cache in bytes.
+     */
+    public static final long DEFAULT_BUDGET = 256L << 20;
+
+    /**
+     * Shortest paths from 1 start vertex to all vertices of a graph.
+     */
+    public static class Tree {
+        /**
+         * Vertex from which the paths start.
+         */
+        private final int startVertex;
+
+        /**
+         * Array of distances to each vertex from the start vertex.
+         */
+        private final double [] distance;
+
+        /**
+         * Array of predecessors for each vertex.
+         */
+        private final int [] predecessor;
+
+        /**
+         * Creates a tree from the arrays of a finished search.
+         * @param startVertex vertex from which the paths start
+         * @param distance array of distances
+         * @param predecessor array of predecessors
+         */
+        Tree(int startVertex, double [] distance, int [] predecessor) {
+            this.startVertex = startVertex;
+            this.distance = distance;
+            this.predecessor = predecessor;
+        }
+
+        /**
+         * Gets the vertex from which the paths start.
+         * @return start vertex
+         */
+        public int getStartVertex() {
+            return startVertex;
+        }
+
+        /**
+         * Gets the length of the shortest path to a vertex.
+         * @param vertex index of the vertex
+         * @return distance, infinity if the path doesn't exist
+         */
+        public double getDistance(int vertex) {
+            return distance[vertex];
+        }
+
+        /**
+         * Reads the shortest path to a vertex from the predecessor array.
+         * @param finishVertex vertex to which the path leads
+         * @return array with the path (finish vertex first, start vertex last), null if the path doesn't exist
+         */
+        public int [] getPath(int finishVertex) {
+            if(distance[finishVertex] == Double.POSITIVE_INFINITY) {
+                return null;
+            }
+            int length = 0;
+            for(int vertex = finishVertex; vertex != -1; vertex = predecessor[vertex]) {
+                length++;
+            }
+            int [] path = new int [length];
+            int i = 0;
+            for(int vertex = finishVertex; vertex != -1; vertex = predecessor[vertex]) {
+                path[i++] = vertex;
+            }
+            return path;
+        }
+
+        /**
+         * Calculates the memory taken by the tree.
+         * @return size in bytes
+         */
+        long getBytes() {
+            return getBytes(distance.length);
+        }
+
+        /**
+         * Calculates the memory taken by a tree of a graph.
+         * @param size number of vertices in the graph
+         * @return size in bytes
+         */
+        static long getBytes(int size) {
+            return size * 12L;
+        }
+    }
+
+    /**
+     * Key of a cached tree.
+     * @param g graph (Graph doesn't override equals, so compared by identity)
+     * @param version version of the graph the tree was computed for
+     * @param startVertex vertex from which the paths start
+     */
+    private record Key(Graph g, long version, int startVertex) {
+    }
+
+    /**
+     * Cached trees in the order of use (least recently used first).
+     */
+    private final LinkedHashMap<Key, Tree> trees = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Memory budget of the cache in bytes.
+     */
+    private final long budget;
+
+    /**
+     * Memory taken by the cached trees in bytes.
+     */
+    private long bytes;
+
+    /**
+     * Number of queries answered from the cache.
+     */
+    private long hits;
+
+    /**
+     * Number of queries which needed a new search.
+     */
+    private long misses;
+
+    /**
+     * Number of trees evicted to stay within the budget.
+     */
+    private long evictions;
+
+    /**
+     * Creates an empty cache.
+     * @param budget memory budget of the cache in bytes
+     */
+    public PathTreeCache(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Gets the shortest path tree of a start vertex, computing it if it isn't cached for the current graph version.
+     * @param g graph
+     * @param startVertex vertex from which the paths start
+     * @return shortest path tree
+     */
+    public Tree getTree(Graph g, int startVertex) {
+        Key key = new Key(g, g.getVersion(), startVertex);
+        synchronized(this) {
+            Tree tree = trees.get(key);
+            if(tree != null) {
+                hits++;
+                return tree;
+            }
+            misses++;
+        }
+        // search without holding the lock
+        Path path = new Path(g);
+        path.findTree(g, startVertex);
+        Tree tree = new Tree(startVertex, path.distance, path.predecessor);
+        if(g.getVersion() == key.version()) {
+            put(key, tree);
+        }
+        return tree;
+    }
+
+    /**
+     * Finds the shortest path between 2 vertices, from a cached tree or a new one if the trees of the graph
+     * fit in the budget, otherwise with the graph's PathEngine (stopped when the finish vertex is settled).
+     * @param g graph
+     * @param startVertex vertex from which the path starts
+     * @param finishVertex vertex to which the path leads
+     * @return array with the path (finish vertex first, start vertex last), null if the path doesn't exist
+     */
+    public int [] findPath(Graph g, int startVertex, int finishVertex) {
+        if(Tree.getBytes(g.getGraphSize()) <= budget) {
+            return getTree(g, startVertex).getPath(finishVertex);
+        }
+        synchronized(this) {
+            misses++;
+        }
+        PathEngine engine = g.getPathEngine();
+        synchronized(engine) {
+            return engine.findPathArray(startVertex, finishVertex);
+        }
+    }
+
+    /**
+     * Adds a tree, drops outdated trees and evicts the least recently used ones above the budget.
+     * @param key key of the tree
+     * @param tree added tree
+     */
+    private synchronized void put(Key key, Tree tree) {
+        Iterator<Map.Entry<Key, Tree>> it = trees.entrySet().iterator();
+        while(it.hasNext()) {
+            Map.Entry<Key, Tree> entry = it.next();
+            if(entry.getKey().version() != entry.getKey().g().getVersion()) {
+                bytes -= entry.getValue().getBytes();
+                it.remove();
+            }
+        }
+        if(tree.getBytes() > budget || trees.containsKey(key)) {
+            return;
+        }
+        trees.put(key, tree);
+        bytes += tree.getBytes();
+        it = trees.entrySet().iterator();
+        while(bytes > budget) {
+            bytes -= it.next().getValue().getBytes();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes all trees from the cache.
+     */
+    public synchronized void clear() {
+        trees.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Gets the number of queries answered from the cache.
+     * @return number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of queries which needed a new search.
+     * @return number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of trees evicted to stay within the budget.
+     * @return number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the memory taken by the cached trees.
+     * @return size in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Path tree cache: %d trees (%.1f MB), %d hits, %d misses, %d evictions",
+                trees.size(), bytes / 1e6, hits, misses, evictions);
+    }
+}
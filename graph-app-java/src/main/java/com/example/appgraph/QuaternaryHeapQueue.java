@@ -0,0 +1,128 @@
+package com.example.appgraph;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue implementing a 4-ary heap.
+ * The heap is half as deep as a binary one and the 4 children of a node lie next to each other in the array,
+ * so removing a vertex touches fewer cache lines.
+ */
+class QuaternaryHeapQueue implements VertexQueue {
+    /**
+     * Initial length of the heap array.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Array implementing a heap, stores vertices' indexes (children of node i are 4i+1 - 4i+4),
+     * grown when full (searches stopped early never need 1 entry per vertex).
+     */
+    private int [] heap;
+
+    /**
+     * Number of vertices currently on the heap.
+     */
+    private int count;
+
+    /**
+     * Array of keys of the vertices (priority factor).
+     */
+    private final double [] key;
+
+    /**
+     * Array of each vertex's current index (position) in the heap array, (-1) if not on the heap.
+     */
+    private final int [] position;
+
+    /**
+     * Builds a priority queue based on the length of the existing key array.
+     * @param key existing key array of (rows * columns) length
+     */
+    QuaternaryHeapQueue(double [] key) {
+        this.key = key;
+        this.heap = new int [Math.min(key.length, INITIAL_CAPACITY)];
+        this.position = new int [key.length];
+        Arrays.fill(this.position, -1);
+    }
+
+    @Override
+    public void push(int vertex, double key) {
+        this.key[vertex] = key;
+        int child = position[vertex];
+        if(child == -1) {
+            if(count == heap.length) {
+                heap = Arrays.copyOf(heap, (int) Math.min(2L * heap.length, this.key.length));
+            }
+            child = count;
+            count++;
+        }
+        // move the parents down until the place of the vertex is found
+        while(child > 0) {
+            int parent = (child - 1) >>> 2;
+            if(this.key[heap[parent]] <= key) {
+                break;
+            }
+            heap[child] = heap[parent];
+            position[heap[child]] = child;
+            child = parent;
+        }
+        heap[child] = vertex;
+        position[vertex] = child;
+    }
+
+    @Override
+    public int pop() {
+        int popped = heap[0];
+        position[popped] = -1;
+        count--;
+        if(count > 0) {
+            int last = heap[count];
+            double lastKey = key[last];
+            int parent = 0;
+            int first = 1;
+            // move the smallest children up until the place of the last vertex is found
+            while(first < count) {
+                int end = Math.min(first + 4, count);
+                int child = first;
+                double childKey = key[heap[first]];
+                for(int i = first + 1; i < end; i++) {
+                    double k = key[heap[i]];
+                    if(k < childKey) {
+                        child = i;
+                        childKey = k;
+                    }
+                }
+                if(lastKey <= childKey) {
+                    break;
+                }
+                heap[parent] = heap[child];
+                position[heap[parent]] = parent;
+                parent = child;
+                first = 4 * parent + 1;
+            }
+            heap[parent] = last;
+            position[last] = parent;
+        }
+        return popped;
+    }
+
+    @Override
+    public int peek() {
+        return heap[0];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (count == 0);
+    }
+
+    /**
+     * Removes all the vertices from the queue (only touches the vertices left on the heap).
+     */
+    void clear() {
+        for(int i = 0; i < count; i++) {
+            position[heap[i]] = -1;
+        }
+        count = 0;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.appgraph;
+
+import java.util.Arrays;
+
+/**
+ * Monotone priority queue implementing a radix heap over the bits of the keys.
+ * Non-negative doubles are ordered like their raw bits read as longs, so an entry is kept in the bucket
+ * of the highest bit in which its key differs from the last removed key (bucket 0: the same key).
+ * Lowering a key adds a new entry, outdated entries are skipped (lazy deletion).
+ * Keys must be non-negative and no lower than the last removed key (true for Dijkstry and consistent A* searches).
+ */
+class RadixHeapQueue implements VertexQueue {
+    /**
+     * Number of buckets (1 for the last removed key + 1 for each bit of a non-negative double).
+     */
+    private static final int BUCKETS = 65;
+
+    /**
+     * Initial capacity of a bucket.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Array of keys of the vertices (priority factor).
+     */
+    private final double [] key;
+
+    /**
+     * Flags of vertices currently in the queue.
+     */
+    private final boolean [] queued;
+
+    /**
+     * Vertices of the entries of each bucket.
+     */
+    private final int [][] vertices = new int [BUCKETS][];
+
+    /**
+     * Raw key bits of the entries of each bucket.
+     */
+    private final long [][] keys = new long [BUCKETS][];
+
+    /**
+     * Number of entries of each bucket.
+     */
+    private final int [] sizes = new int [BUCKETS];
+
+    /**
+     * Raw bits of the last removed key.
+     */
+    private long last;
+
+    /**
+     * Number of vertices currently in the queue.
+     */
+    private int count;
+
+    /**
+     * Builds a priority queue based on the length of the existing key array.
+     * @param key existing key array of (rows * columns) length
+     */
+    RadixHeapQueue(double [] key) {
+        this.key = key;
+        this.queued = new boolean [key.length];
+        for(int i = 0; i < BUCKETS; i++) {
+            vertices[i] = new int [INITIAL_CAPACITY];
+            keys[i] = new long [INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Calculates the bucket of an entry.
+     * @param bits raw bits of the key of the entry
+     * @return index of the bucket
+     */
+    private int getBucket(long bits) {
+        // keys lower than the last one (only possible through rounding) are treated as equal to it
+        return (bits <= last) ? 0 : 64 - Long.numberOfLeadingZeros(bits ^ last);
+    }
+
+    /**
+     * Adds an entry to a bucket.
+     * @param bucket index of the bucket
+     * @param vertex vertex of the entry
+     * @param bits raw bits of the key of the entry
+     */
+    private void add(int bucket, int vertex, long bits) {
+        int size = sizes[bucket];
+        if(size == vertices[bucket].length) {
+            vertices[bucket] = Arrays.copyOf(vertices[bucket], size * 2);
+            keys[bucket] = Arrays.copyOf(keys[bucket], size * 2);
+        }
+        vertices[bucket][size] = vertex;
+        keys[bucket][size] = bits;
+        sizes[bucket] = size + 1;
+    }
+
+    /**
+     * Checks if an entry holds the current key of a vertex in the queue.
+     * @param vertex vertex of the entry
+     * @param bits raw bits of the key of the entry
+     * @return true or false
+     */
+    private boolean isCurrent(int vertex, long bits) {
+        return queued[vertex] && Double.doubleToRawLongBits(key[vertex]) == bits;
+    }
+
+    @Override
+    public void push(int vertex, double key) {
+        this.key[vertex] = key;
+        if(!queued[vertex]) {
+            queued[vertex] = true;
+            count++;
+        }
+        long bits = Double.doubleToRawLongBits(key);
+        add(getBucket(bits), vertex, bits);
+    }
+
+    @Override
+    public int pop() {
+        int popped = peek();
+        sizes[0]--;
+        queued[popped] = false;
+        count--;
+        return popped;
+    }
+
+    @Override
+    public int peek() {
+        while(true) {
+            // outdated entries on top of bucket 0 are dropped
+            while(sizes[0] > 0) {
+                int top = sizes[0] - 1;
+                if(isCurrent(vertices[0][top], keys[0][top])) {
+                    return vertices[0][top];
+                }
+                sizes[0]--;
+            }
+
+            int bucket = 1;
+            while(sizes[bucket] == 0) {
+                bucket++;
+            }
+            int [] bucketVertices = vertices[bucket];
+            long [] bucketKeys = keys[bucket];
+            int size = sizes[bucket];
+            sizes[bucket] = 0;
+
+            long min = Long.MAX_VALUE;
+            for(int i = 0; i < size; i++) {
+                if(bucketKeys[i] < min && isCurrent(bucketVertices[i], bucketKeys[i])) {
+                    min = bucketKeys[i];
+                }
+            }
+            if(min == Long.MAX_VALUE) {
+                // only outdated entries
+                continue;
+            }
+            // every entry of the bucket moves to a lower one
+            last = min;
+            for(int i = 0; i < size; i++) {
+                if(isCurrent(bucketVertices[i], bucketKeys[i])) {
+                    add(getBucket(bucketKeys[i]), bucketVertices[i], bucketKeys[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return (count == 0);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.appgraph;
 
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 
@@ -51,6 +52,20 @@ public interface ReadGraph {
      */
     void readGraph(FileReader reader) throws IOException;
 
+    /**
+     * Reads a graph from a text file.
+     * @param file text graph file
+     * @throws IOException in case of an incorrect file format
+     */
+    void readGraph(File file) throws IOException;
+
+    /**
+     * Reads a graph from a binary file.
+     * @param file binary graph file
+     * @throws IOException in case of an incorrect file format
+     */
+    void readBinaryGraph(File file) throws IOException;
+
     /**
      * Prints the graph contents to standard output.
      */
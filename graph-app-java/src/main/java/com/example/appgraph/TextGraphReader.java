@@ -0,0 +1,861 @@
+package com.example.appgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Class for reading a graph from a text file in one pass, without creating objects for each line.
+ * Format: "rows columns" in the 1st line, then 1 line per vertex: "neighbourIndex1 :edgeWeight1 ...".
+ */
+public class TextGraphReader {
+    /**
+     * Size of the buffer the file is read into.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Minimum file size (in bytes) for which Graph.readGraph reads the file in parallel.
+     */
+    public static final long PARALLEL_SIZE = 1 << 24;
+
+    /**
+     * Maximum size of a part of the file parsed by 1 task (a part is mapped as 1 buffer).
+     */
+    private static final long MAX_PART_SIZE = 1 << 30;
+
+    /**
+     * Maximum number of error messages saved in the report.
+     */
+    private static final int MAX_ERROR_MESSAGES = 10;
+
+    /**
+     * Powers of ten exactly representable as doubles.
+     */
+    private static final double [] DOUBLE_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * Powers of ten fitting in a long.
+     */
+    private static final long [] LONG_POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+    };
+
+    /**
+     * Value returned by the number scanners if the token isn't a correct number.
+     */
+    private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+
+    /**
+     * Summary of a read graph file.
+     */
+    public static class Report {
+        /**
+         * Number of bytes read.
+         */
+        long bytes;
+
+        /**
+         * Reading time in nanoseconds.
+         */
+        long nanos;
+
+        /**
+         * Number of edge entries read (each undirected edge is usually listed by both of its vertices).
+         */
+        long entries;
+
+        /**
+         * Number of vertices with 0-4 listed neighbours.
+         */
+        final long [] degreeCounts = new long [5];
+
+        /**
+         * Lowest weight read.
+         */
+        double weightLower = Double.POSITIVE_INFINITY;
+
+        /**
+         * Highest weight read.
+         */
+        double weightUpper = -1;
+
+        /**
+         * Number of errors found.
+         */
+        long errorCount;
+
+        /**
+         * First MAX_ERROR_MESSAGES error messages.
+         */
+        final List<String> errors = new ArrayList<>();
+
+        /**
+         * Saves an error.
+         * @param line number of the line containing the error
+         * @param message error description
+         */
+        void addError(long line, String message) {
+            if (errors.size() < MAX_ERROR_MESSAGES) {
+                errors.add("Line " + line + ": " + message);
+            }
+            errorCount++;
+        }
+
+        /**
+         * Merges the statistics and errors of a later part of the same file into this report.
+         * @param other merged report
+         */
+        void merge(Report other) {
+            entries += other.entries;
+            for (int i = 0; i < degreeCounts.length; i++) {
+                degreeCounts[i] += other.degreeCounts[i];
+            }
+            weightLower = Math.min(weightLower, other.weightLower);
+            weightUpper = Math.max(weightUpper, other.weightUpper);
+            for (String error : other.errors) {
+                if (errors.size() < MAX_ERROR_MESSAGES) {
+                    errors.add(error);
+                }
+            }
+            errorCount += other.errorCount;
+        }
+
+        /**
+         * Gets the number of bytes read.
+         * @return number of bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Gets the number of edge entries read.
+         * @return number of entries
+         */
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * Gets the number of vertices with a given number of listed neighbours.
+         * @param degree number of neighbours (range: 0-4)
+         * @return number of vertices
+         */
+        public long getDegreeCount(int degree) {
+            return degreeCounts[degree];
+        }
+
+        /**
+         * Gets the lowest weight read.
+         * @return lowest weight
+         */
+        public double getWeightLower() {
+            return weightLower;
+        }
+
+        /**
+         * Gets the highest weight read.
+         * @return highest weight
+         */
+        public double getWeightUpper() {
+            return weightUpper;
+        }
+
+        /**
+         * Checks if any errors were found.
+         * @return true or false
+         */
+        public boolean hasErrors() {
+            return errorCount > 0;
+        }
+
+        /**
+         * Gets the number of errors found.
+         * @return number of errors
+         */
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * Gets the first error messages.
+         * @return list of error messages
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        /**
+         * Gets the reading time.
+         * @return reading time in milliseconds
+         */
+        public double getMillis() {
+            return nanos / 1e6;
+        }
+
+        /**
+         * Calculates the parsing throughput.
+         * @return throughput in MB/s
+         */
+        public double getThroughput() {
+            return (nanos == 0) ? 0.0 : (bytes / 1e6) / (nanos / 1e9);
+        }
+
+        /**
+         * Describes the report.
+         * @return string with the report description
+         */
+        @Override
+        public String toString() {
+            return String.format("Read %d bytes in %.1f ms (%.1f MB/s), %d edge entries, %d errors",
+                    bytes, getMillis(), getThroughput(), entries, errorCount);
+        }
+    }
+
+    /**
+     * File containing the graph.
+     */
+    private final File file;
+
+    /**
+     * Buffer the file is read into.
+     */
+    private final byte [] data = new byte [BUFFER_SIZE];
+
+    /**
+     * Position of the next byte in the buffer.
+     */
+    private int position;
+
+    /**
+     * Number of valid bytes in the buffer.
+     */
+    private int limit;
+
+    /**
+     * Channel of the read file (when reading the whole file sequentially).
+     */
+    private FileChannel channel;
+
+    /**
+     * Mapped part of the file (when reading 1 part in parallel with other parts).
+     */
+    private ByteBuffer part;
+
+    /**
+     * Offset in the file of the 1st byte in the buffer.
+     */
+    private long base;
+
+    /**
+     * Characters of the last scanned number (used only if it can't be converted exactly by hand).
+     */
+    private byte [] token = new byte [64];
+
+    /**
+     * Creates a reader of a graph file.
+     * @param file text graph file
+     */
+    public TextGraphReader(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates a reader of 1 mapped part of a graph file.
+     * @param file text graph file
+     * @param part mapped part of the file, starting at the beginning of a line
+     */
+    private TextGraphReader(File file, ByteBuffer part) {
+        this.file = file;
+        this.part = part;
+    }
+
+    /**
+     * Reads the graph from the file into a graph.
+     * @param g graph to be filled (its previous contents are replaced)
+     * @return report with the statistics and errors of the file
+     * @throws IOException in case of a reading error or incorrect graph dimensions
+     */
+    public Report read(Graph g) throws IOException {
+        Report report = new Report();
+        long start = System.nanoTime();
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            channel = fileChannel;
+            position = limit = 0;
+            base = 0;
+
+            readHeader(g, report);
+            for (int i = 0; i < g.getGraphSize(); i++) {
+                if (peek() == -1) {
+                    report.addError(i + 2L, "missing lines for vertices " + i + " to " + (g.getGraphSize() - 1));
+                    break;
+                }
+                readLine(g, i, report);
+            }
+            report.bytes = channel.size();
+        } finally {
+            channel = null;
+        }
+        g.setWeightRange(report.weightLower, report.weightUpper);
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Reads the graph from the file into a graph, parsing parts of the file on the common ForkJoinPool.
+     * The file is split on line boundaries, each part's first vertex is found by counting the line breaks
+     * in the preceding parts, and every part is parsed straight into the graph's edge storage.
+     * If an edge is listed with different weights by its 2 vertices, the stored weight is either of them.
+     * @param g graph to be filled (its previous contents are replaced)
+     * @return report with the statistics and errors of the file
+     * @throws IOException in case of a reading error or incorrect graph dimensions
+     */
+    public Report readParallel(Graph g) throws IOException {
+        Report report = new Report();
+        long start = System.nanoTime();
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            channel = fileChannel;
+            position = limit = 0;
+            base = 0;
+            readHeader(g, report);
+            long dataStart = base + position;
+            long size = channel.size();
+            report.bytes = size;
+
+            int parts = (int) Math.max(ForkJoinPool.getCommonPoolParallelism() * 4L, (size / MAX_PART_SIZE) + 1);
+            long [] bounds = findPartBounds(dataStart, size, parts);
+
+            // count the lines of each part to find the 1st vertex of each part
+            List<ForkJoinTask<Long>> counting = new ArrayList<>();
+            for (int i = 0; i < parts; i++) {
+                ByteBuffer mapped = map(bounds[i], bounds[i + 1]);
+                counting.add(ForkJoinPool.commonPool().submit(() -> countLines(mapped)));
+            }
+            long [] firstVertex = new long [parts + 1];
+            for (int i = 0; i < parts; i++) {
+                firstVertex[i + 1] = firstVertex[i] + join(counting.get(i));
+            }
+
+            List<ForkJoinTask<Report>> parsing = new ArrayList<>();
+            for (int i = 0; i < parts; i++) {
+                if (firstVertex[i] >= g.getGraphSize() || bounds[i] == bounds[i + 1]) {
+                    continue;
+                }
+                ByteBuffer mapped = map(bounds[i], bounds[i + 1]);
+                int first = (int) firstVertex[i];
+                int last = (int) Math.min(firstVertex[i + 1], g.getGraphSize());
+                parsing.add(ForkJoinPool.commonPool().submit(() -> new TextGraphReader(file, mapped).readPart(g, first, last)));
+            }
+            for (ForkJoinTask<Report> task : parsing) {
+                report.merge(join(task));
+            }
+            if (firstVertex[parts] < g.getGraphSize()) {
+                report.addError(firstVertex[parts] + 2, "missing lines for vertices " + firstVertex[parts]
+                        + " to " + (g.getGraphSize() - 1));
+            }
+        } finally {
+            channel = null;
+        }
+        g.setWeightRange(report.weightLower, report.weightUpper);
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Reads the 1st line of the file and sets the dimensions of the graph.
+     * @param g graph
+     * @param report report to save the errors in
+     * @throws IOException in case of a reading error or incorrect graph dimensions
+     */
+    private void readHeader(Graph g, Report report) throws IOException {
+        skipBlanks();
+        long rows = scanInt();
+        skipBlanks();
+        long columns = scanInt();
+        if (rows == NOT_A_NUMBER || columns == NOT_A_NUMBER) {
+            throw new IOException("Incorrect file format.");
+        }
+        if (!Graph.isValidSize(rows, columns)) {
+            throw new IOException("Graph dimensions out of range.");
+        }
+        g.setDimensions((int) rows, (int) columns);
+        skipLine(report, 1);
+    }
+
+    /**
+     * Reads the lines of a range of vertices from the mapped part of the file.
+     * @param g graph
+     * @param first index of the vertex in the 1st line of the part
+     * @param last index of the vertex after the last one read
+     * @return report with the statistics and errors of the part
+     * @throws IOException in case of a reading error
+     */
+    private Report readPart(Graph g, int first, int last) throws IOException {
+        Report report = new Report();
+        for (int i = first; i < last; i++) {
+            readLine(g, i, report);
+        }
+        return report;
+    }
+
+    /**
+     * Finds the bounds of the parts of the file, each part starting at the beginning of a line.
+     * @param dataStart offset of the 2nd line of the file
+     * @param size size of the file
+     * @param parts number of parts
+     * @return array of (parts + 1) offsets
+     * @throws IOException in case of a reading error
+     */
+    private long [] findPartBounds(long dataStart, long size, int parts) throws IOException {
+        long [] bounds = new long [parts + 1];
+        bounds[0] = dataStart;
+        bounds[parts] = size;
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        for (int i = 1; i < parts; i++) {
+            long offset = Math.max(dataStart + (size - dataStart) / parts * i, bounds[i - 1]);
+            bounds[i] = size;
+            search:
+            while (offset < size) {
+                window.clear();
+                int read = channel.read(window, offset);
+                for (int j = 0; j < read; j++) {
+                    if (window.get(j) == '\n') {
+                        bounds[i] = offset + j + 1;
+                        break search;
+                    }
+                }
+                offset += Math.max(read, 0);
+            }
+        }
+        return bounds;
+    }
+
+    /**
+     * Maps a part of the file.
+     * @param from offset of the 1st byte of the part
+     * @param to offset after the last byte of the part
+     * @return mapped part
+     * @throws IOException in case of a mapping error
+     */
+    private ByteBuffer map(long from, long to) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    }
+
+    /**
+     * Counts the lines in a mapped part of the file (the last line may lack a line break).
+     * @param mapped mapped part of the file
+     * @return number of lines
+     */
+    private static long countLines(ByteBuffer mapped) {
+        long lines = 0;
+        int end = mapped.limit();
+        for (int i = 0; i < end; i++) {
+            if (mapped.get(i) == '\n') {
+                lines++;
+            }
+        }
+        if (end > 0 && mapped.get(end - 1) != '\n') {
+            lines++;
+        }
+        return lines;
+    }
+
+    /**
+     * Waits for a task to finish.
+     * @param task parsing or counting task
+     * @param <T> type of the task result
+     * @return result of the task
+     * @throws IOException in case of a reading error in the task
+     */
+    private static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Reading interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads the line of a vertex.
+     * @param g graph
+     * @param vertex index of the vertex
+     * @param report report to save the statistics and errors in
+     * @throws IOException in case of a reading error
+     */
+    private void readLine(Graph g, int vertex, Report report) throws IOException {
+        long line = vertex + 2L;
+        int count = 0;
+        while (true) {
+            skipSeparators();
+            int c = peek();
+            if (c == '\n' || c == -1) {
+                break;
+            }
+            long neighbour = scanInt();
+            if (neighbour == NOT_A_NUMBER) {
+                report.addError(line, "incorrect neighbour index");
+                skipLine(report, line);
+                return;
+            }
+            skipSeparators();
+            double weight = scanDouble();
+            if (Double.isNaN(weight)) {
+                report.addError(line, "incorrect weight of the edge to " + neighbour);
+                skipLine(report, line);
+                return;
+            }
+            count++;
+            report.entries++;
+            if (neighbour > Integer.MAX_VALUE || neighbour < Integer.MIN_VALUE
+                    || g.addNeighbour(vertex, (int) neighbour, weight) == -1) {
+                report.addError(line, "incorrect neighbour " + neighbour + " of vertex " + vertex);
+                continue;
+            }
+            if (weight < report.weightLower) {
+                report.weightLower = weight;
+            }
+            if (weight > report.weightUpper) {
+                report.weightUpper = weight;
+            }
+        }
+        if (count > 4) {
+            report.addError(line, "vertex " + vertex + " has more than 4 neighbours");
+        }
+        report.degreeCounts[Math.min(count, 4)]++;
+        skipLine(report, line);
+    }
+
+    /**
+     * Fills the buffer with the next part of the file.
+     * @return false at the end of the file
+     * @throws IOException in case of a reading error
+     */
+    private boolean fill() throws IOException {
+        base += limit;
+        int read;
+        if (part != null) {
+            read = Math.min(data.length, part.remaining());
+            part.get(data, 0, read);
+        } else {
+            do {
+                read = channel.read(ByteBuffer.wrap(data));
+            } while (read == 0);
+        }
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    /**
+     * Gets the next byte without consuming it.
+     * @return next byte, (-1) at the end of the file
+     * @throws IOException in case of a reading error
+     */
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return data[position] & 0xFF;
+    }
+
+    /**
+     * Skips spaces, tabs and carriage returns.
+     * @throws IOException in case of a reading error
+     */
+    private void skipBlanks() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t' || c == '\r') {
+            position++;
+        }
+    }
+
+    /**
+     * Skips blanks and colons separating the numbers in a line.
+     * @throws IOException in case of a reading error
+     */
+    private void skipSeparators() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t' || c == '\r' || c == ':') {
+            position++;
+        }
+    }
+
+    /**
+     * Skips the rest of the current line (reporting unexpected characters) and the line break.
+     * @param report report to save the errors in
+     * @param line number of the current line
+     * @throws IOException in case of a reading error
+     */
+    private void skipLine(Report report, long line) throws IOException {
+        skipBlanks();
+        int c = peek();
+        if (c != '\n' && c != -1) {
+            report.addError(line, "unexpected characters at the end of the line");
+            while ((c = peek()) != '\n' && c != -1) {
+                position++;
+            }
+        }
+        if (c == '\n') {
+            position++;
+        }
+    }
+
+    /**
+     * Checks if a byte ends a number.
+     * @param c checked byte
+     * @return true or false
+     */
+    private static boolean isDelimiter(int c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == ':' || c == -1;
+    }
+
+    /**
+     * Scans an integer.
+     * @return value of the integer, NOT_A_NUMBER if the token isn't a correct integer
+     * @throws IOException in case of a reading error
+     */
+    private long scanInt() throws IOException {
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            position++;
+        }
+        long value = 0;
+        int digits = 0;
+        int c;
+        while ((c = peek()) >= '0' && c <= '9') {
+            if (digits++ > 12) {
+                // far outside of any vertex index
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + (c - '0');
+            position++;
+        }
+        if (digits == 0 || !isDelimiter(c)) {
+            return NOT_A_NUMBER;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Appends a byte to the token of the number being scanned.
+     * @param length current length of the token
+     * @param c appended byte
+     */
+    private void appendToken(int length, int c) {
+        if (length == token.length) {
+            byte [] grown = new byte [token.length * 2];
+            System.arraycopy(token, 0, grown, 0, length);
+            token = grown;
+        }
+        token[length] = (byte) c;
+    }
+
+    /**
+     * Scans a decimal number (e.g. "12", "4.919537429290665", "1.0E-4").
+     * @return value of the number, NaN if the token isn't a correct number
+     * @throws IOException in case of a reading error
+     */
+    private double scanDouble() throws IOException {
+        int length = 0;
+        boolean negative = false;
+        int c = peek();
+        if (c == '-' || c == '+') {
+            negative = (c == '-');
+            appendToken(length++, c);
+            position++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean fraction = false;
+        int digits = 0;
+        while (true) {
+            c = peek();
+            if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa == 0 && c == '0') {
+                    // leading zero, not significant
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else if (significantDigits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    significantDigits++;
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else {
+                    truncated = true;
+                    if (!fraction) {
+                        exponent++;
+                    }
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+            appendToken(length++, c);
+            position++;
+        }
+        if (digits == 0) {
+            return Double.NaN;
+        }
+
+        if (c == 'e' || c == 'E') {
+            appendToken(length++, c);
+            position++;
+            int exponentSign = 1;
+            c = peek();
+            if (c == '-' || c == '+') {
+                exponentSign = (c == '-') ? -1 : 1;
+                appendToken(length++, c);
+                position++;
+            }
+            int value = 0;
+            int exponentDigits = 0;
+            while ((c = peek()) >= '0' && c <= '9') {
+                if (value < 100000) {
+                    value = value * 10 + (c - '0');
+                }
+                exponentDigits++;
+                appendToken(length++, c);
+                position++;
+            }
+            if (exponentDigits == 0) {
+                return Double.NaN;
+            }
+            exponent += exponentSign * value;
+        }
+        if (!isDelimiter(c)) {
+            return Double.NaN;
+        }
+
+        double value = truncated ? Double.NaN : toDouble(mantissa, exponent);
+        if (Double.isNaN(value)) {
+            // rare case: more than 18 significant digits or an extreme exponent
+            value = Math.abs(Double.parseDouble(new String(token, 0, length, StandardCharsets.US_ASCII)));
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Converts a decimal number (mantissa * 10^exponent) to the nearest double (rounding half to even).
+     * Uses exact double arithmetic where possible, otherwise corrects an approximation with 128-bit comparisons.
+     * @param mantissa decimal mantissa (at most 18 digits)
+     * @param exponent decimal exponent
+     * @return nearest double, NaN if it can't be determined this way
+     */
+    static double toDouble(long mantissa, int exponent) {
+        if (mantissa == 0) {
+            return 0.0;
+        }
+        if (mantissa <= (1L << 53) && exponent >= -22 && exponent <= 22) {
+            // both operands exact, so the single rounding of the division (multiplication) is correct
+            return (exponent < 0) ? mantissa / DOUBLE_POWERS_OF_TEN[-exponent] : mantissa * DOUBLE_POWERS_OF_TEN[exponent];
+        }
+        if (exponent >= 0 || exponent < -18) {
+            return Double.NaN;
+        }
+
+        int k = -exponent;
+        long power = LONG_POWERS_OF_TEN[k];
+        double candidate = mantissa / DOUBLE_POWERS_OF_TEN[k];
+        for (int attempt = 0; attempt < 4; attempt++) {
+            if (candidate < Double.MIN_NORMAL) {
+                return Double.NaN;
+            }
+            int binaryExponent = Math.getExponent(candidate) - 52;
+            long binaryMantissa = (Double.doubleToRawLongBits(candidate) & ((1L << 52) - 1)) | (1L << 52);
+            if (binaryExponent > 1) {
+                return Double.NaN;
+            }
+
+            // compare with the midpoint between the candidate and the next double: (2M + 1) * 2^(E - 1)
+            int upper = compare(mantissa, 1 - binaryExponent, 2 * binaryMantissa + 1, power);
+            if (upper == Integer.MIN_VALUE) {
+                return Double.NaN;
+            }
+            if (upper > 0) {
+                candidate = Math.nextUp(candidate);
+                continue;
+            }
+            if (upper == 0) {
+                return ((binaryMantissa & 1) == 0) ? candidate : Math.nextUp(candidate);
+            }
+
+            // compare with the midpoint between the previous double and the candidate
+            int lower;
+            if (binaryMantissa == (1L << 52)) {
+                // the previous double has a smaller exponent: (4M - 1) * 2^(E - 2)
+                lower = compare(mantissa, 2 - binaryExponent, 4 * binaryMantissa - 1, power);
+            } else {
+                lower = compare(mantissa, 1 - binaryExponent, 2 * binaryMantissa - 1, power);
+            }
+            if (lower == Integer.MIN_VALUE) {
+                return Double.NaN;
+            }
+            if (lower < 0) {
+                candidate = Math.nextDown(candidate);
+                continue;
+            }
+            if (lower == 0 && (binaryMantissa & 1) != 0) {
+                return Math.nextDown(candidate);
+            }
+            return candidate;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Compares (m * 2^shift) with (a * b) using 128-bit unsigned arithmetic.
+     * @param m non-negative long
+     * @param shift non-negative shift
+     * @param a non-negative long below 2^56
+     * @param b non-negative long below 2^60
+     * @return sign of the difference, Integer.MIN_VALUE if (m * 2^shift) doesn't fit in 127 bits
+     */
+    private static int compare(long m, int shift, long a, long b) {
+        if ((64 - Long.numberOfLeadingZeros(m)) + shift > 127) {
+            return Integer.MIN_VALUE;
+        }
+        long leftHigh, leftLow;
+        if (shift == 0) {
+            leftHigh = 0;
+            leftLow = m;
+        } else if (shift < 64) {
+            leftHigh = m >>> (64 - shift);
+            leftLow = m << shift;
+        } else {
+            leftHigh = m << (shift - 64);
+            leftLow = 0;
+        }
+        long rightHigh = Math.multiplyHigh(a, b);
+        long rightLow = a * b;
+        int result = Long.compareUnsigned(leftHigh, rightHigh);
+        return (result != 0) ? Integer.signum(result) : Integer.signum(Long.compareUnsigned(leftLow, rightLow));
+    }
+}
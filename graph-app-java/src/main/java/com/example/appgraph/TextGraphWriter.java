@@ -0,0 +1,252 @@
+package com.example.appgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Class for writing a graph into a text file, formatting blocks of vertices in parallel.
+ * Blocks are formatted on the common ForkJoinPool into reusable byte buffers and written in order,
+ * so the file is identical to the one written sequentially.
+ * With a fixed precision the weights are formatted digit by digit straight into the buffers, without garbage;
+ * the exact format (FULL_PRECISION) goes through Double.toString, 1 short-lived String per weight,
+ * the price of the shortest representation that reads back to the same double.
+ * Format: "rows columns" in the 1st line, then 1 line per vertex: "\tneighbourIndex1 :edgeWeight1 ... ".
+ */
+public class TextGraphWriter {
+    /**
+     * Precision value for writing weights exactly (as Double.toString does).
+     */
+    public static final int FULL_PRECISION = -1;
+
+    /**
+     * Maximum number of decimal places of the fixed precision format.
+     */
+    public static final int MAX_PRECISION = 15;
+
+    /**
+     * Number of vertices formatted by 1 task.
+     */
+    private static final int BLOCK_SIZE = 1 << 14;
+
+    /**
+     * Maximum number of bytes of 1 formatted line.
+     */
+    private static final int MAX_LINE_LENGTH = 4 * (11 + 2 + 25 + 1) + 2;
+
+    /**
+     * Powers of ten used by the fixed precision format.
+     */
+    private static final long [] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+            10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L
+    };
+
+    /**
+     * Reusable buffer of 1 formatted block.
+     */
+    private static class Block {
+        /**
+         * Formatted bytes.
+         */
+        byte [] data = new byte [BLOCK_SIZE * 64];
+
+        /**
+         * Number of formatted bytes.
+         */
+        int length;
+
+        /**
+         * Makes sure there is room for another line in the buffer.
+         */
+        void ensureLine() {
+            if (length + MAX_LINE_LENGTH > data.length) {
+                byte [] grown = new byte [data.length * 2];
+                System.arraycopy(data, 0, grown, 0, length);
+                data = grown;
+            }
+        }
+
+        /**
+         * Appends a byte.
+         * @param b appended byte
+         */
+        void put(int b) {
+            data[length++] = (byte) b;
+        }
+
+        /**
+         * Appends the decimal digits of a non-negative number.
+         * @param value appended number
+         */
+        void putDigits(long value) {
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            for (int i = length + digits - 1; i >= length; i--) {
+                data[i] = (byte) ('0' + (value % 10));
+                value /= 10;
+            }
+            length += digits;
+        }
+
+        /**
+         * Appends the characters of a string (ASCII only).
+         * @param str appended string
+         */
+        void putString(String str) {
+            for (int i = 0; i < str.length(); i++) {
+                data[length++] = (byte) str.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Graph to be written.
+     */
+    private final Graph g;
+
+    /**
+     * Number of decimal places of the weights, FULL_PRECISION for the exact format.
+     */
+    private final int precision;
+
+    /**
+     * Creates a writer of a graph.
+     * @param g graph to be written
+     * @param precision number of decimal places of the weights (0 - MAX_PRECISION),
+     * FULL_PRECISION to write them exactly
+     */
+    public TextGraphWriter(Graph g, int precision) {
+        if (precision != FULL_PRECISION && (precision < 0 || precision > MAX_PRECISION)) {
+            throw new IllegalArgumentException("Precision out of range.");
+        }
+        this.g = g;
+        this.precision = precision;
+    }
+
+    /**
+     * Writes the graph into a file.
+     * @param file text graph file
+     * @throws IOException in case of a writing error
+     */
+    public void write(File file) throws IOException {
+        int blocks = (int) ((g.getGraphSize() + (long) BLOCK_SIZE - 1) / BLOCK_SIZE);
+        int maxPending = Math.max(2, ForkJoinPool.getCommonPoolParallelism() * 2);
+        ArrayDeque<Block> free = new ArrayDeque<>();
+        ArrayDeque<ForkJoinTask<Block>> pending = new ArrayDeque<>();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Block header = new Block();
+            header.putDigits(g.getRows());
+            header.put(' ');
+            header.putDigits(g.getColumns());
+            header.put('\n');
+            writeBlock(channel, header);
+
+            int next = 0;
+            try {
+                while (next < blocks || !pending.isEmpty()) {
+                    while (next < blocks && pending.size() < maxPending) {
+                        Block block = free.isEmpty() ? new Block() : free.poll();
+                        int first = next * BLOCK_SIZE;
+                        int last = (int) Math.min((long) first + BLOCK_SIZE, g.getGraphSize());
+                        pending.add(ForkJoinPool.commonPool().submit(() -> format(block, first, last)));
+                        next++;
+                    }
+                    Block block = pending.poll().get();
+                    writeBlock(channel, block);
+                    free.add(block);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Writing interrupted.", e);
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            } finally {
+                for (ForkJoinTask<Block> task : pending) {
+                    task.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the contents of a block into the file.
+     * @param channel channel of the file
+     * @param block formatted block
+     * @throws IOException in case of a writing error
+     */
+    private static void writeBlock(FileChannel channel, Block block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(block.data, 0, block.length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Formats the lines of a range of vertices.
+     * @param block buffer for the formatted lines (its previous contents are discarded)
+     * @param first index of the 1st vertex
+     * @param last index of the vertex after the last one formatted
+     * @return the block
+     */
+    private Block format(Block block, int first, int last) {
+        block.length = 0;
+        for (int i = first; i < last; i++) {
+            block.ensureLine();
+            block.put('\t');
+            for (int j = 0; j < 4; j++) {
+                if (g.hasNeighbour(i, j)) {
+                    block.putDigits(g.getNeighbour(i, j));
+                    block.put(' ');
+                    block.put(':');
+                    putWeight(block, g.getWeight(i, j));
+                    block.put(' ');
+                }
+            }
+            block.put('\n');
+        }
+        return block;
+    }
+
+    /**
+     * Appends a weight, rounded to the set precision (trailing zeros dropped) or exact.
+     * Weights which would round to 0 (not accepted by the reader) or don't fit in a long are written exactly.
+     * @param block buffer for the formatted weight
+     * @param weight appended weight
+     */
+    private void putWeight(Block block, double weight) {
+        if (precision != FULL_PRECISION && weight > 0 && weight * POWERS_OF_TEN[precision] < Long.MAX_VALUE) {
+            long scaled = Math.round(weight * POWERS_OF_TEN[precision]);
+            if (scaled > 0) {
+                long integer = scaled / POWERS_OF_TEN[precision];
+                long fraction = scaled % POWERS_OF_TEN[precision];
+                block.putDigits(integer);
+                if (fraction != 0) {
+                    int digits = precision;
+                    while (fraction % 10 == 0) {
+                        fraction /= 10;
+                        digits--;
+                    }
+                    block.put('.');
+                    for (int i = digits - 1; i > 0 && fraction < POWERS_OF_TEN[i]; i--) {
+                        block.put('0');
+                    }
+                    block.putDigits(fraction);
+                }
+                return;
+            }
+        }
+        block.putString(Double.toString(weight));
+    }
+}
@@ -1,51 +1,56 @@
 package com.example.appgraph;
 
-import java.util.Arrays;
-
 /**
- * Class containing 1 vertex.
+ * Class containing 1 vertex (a view of the vertex's edges stored in the graph).
  */
 public class Vertex {
     /**
-     * Array containing indexes of all of vertex's neighbours.
-     * Order: upper (v - columns), left (v - 1), right (v + 1), lower (v + columns).
-     * (-1) if no neighbour present at the position.
+     * Graph storing the vertex's neighbours and edge weights.
      */
-    private final int [] neighbour = new int [4];
+    private final Graph g;
 
     /**
-     * Array containing weights of all of vertex's edges
-     * Order: upper (v - columns), left (v - 1), right (v + 1), lower (v + columns).
-     * (-1) if no edge present at the position.
+     * Index of the vertex in the graph.
      */
-    private final double [] weight = new double [4];
+    private final int index;
 
     /**
-     * 0 -> UPPER mapping for intuitive use of neighbour[] and weight[] arrays.
+     * 0 -> UPPER mapping for intuitive use of neighbour and weight positions.
+     * Order: upper (v - columns), left (v - 1), right (v + 1), lower (v + columns).
      */
     public final static int UPPER = 0;
 
     /**
-     * 1 -> LEFT mapping for intuitive use of neighbour[] and weight[] arrays.
+     * 1 -> LEFT mapping for intuitive use of neighbour and weight positions.
      */
     public final static int LEFT = 1;
 
     /**
-     * 2 -> RIGHT mapping for intuitive use of neighbour[] and weight[] arrays.
+     * 2 -> RIGHT mapping for intuitive use of neighbour and weight positions.
      */
     public final static int RIGHT = 2;
 
     /**
-     * 3 -> LOWER mapping for intuitive use of neighbour[] and weight[] arrays.
+     * 3 -> LOWER mapping for intuitive use of neighbour and weight positions.
      */
     public final static int LOWER = 3;
 
     /**
-     * Creates an empty vertex.
+     * Creates a view of a vertex of the graph.
+     * @param g graph containing the vertex
+     * @param index index of the vertex
      */
-    public Vertex() {
-        Arrays.fill(neighbour, -1);
-        Arrays.fill(weight, -1);
+    Vertex(Graph g, int index) {
+        this.g = g;
+        this.index = index;
+    }
+
+    /**
+     * Gets the index of the vertex.
+     * @return index of the vertex
+     */
+    public int getIndex() {
+        return index;
     }
 
     /**
@@ -55,8 +60,7 @@ public class Vertex {
      * @param w weight of the edge between the vertex and the neighbour
      */
     public void setNeighbour(int position, int nIndex, double w) {
-        neighbour[position] = nIndex;
-        weight[position] = w;
+        g.setNeighbour(index, position, nIndex, w);
     }
 
     /**
@@ -64,17 +68,16 @@ public class Vertex {
      * @param position position of the neighbour in relation to the vertex
      */
     public void removeNeighbour(int position) {
-        neighbour[position] = -1;
-        weight[position] = -1;
+        g.removeNeighbour(index, position);
     }
 
     /**
      * Gets a neighbour of the vertex.
      * @param position position of the neighbour in relation to the vertex
-     * @return index of the neighbour
+     * @return index of the neighbour, (-1) if not present
      */
     public int getNeighbour(int position) {
-        return neighbour[position];
+        return g.getNeighbour(index, position);
     }
 
     /**
@@ -83,7 +86,7 @@ public class Vertex {
      * @return true or false
      */
     public boolean hasNeighbour(int position) {
-        return (neighbour[position] != -1);
+        return g.hasNeighbour(index, position);
     }
 
     /**
@@ -91,22 +94,16 @@ public class Vertex {
      * @return number of neighbours (range: 0-4)
      */
     public int countNeighbours() {
-        int count = 0;
-        for(int i = 0; i < 4; i++) {
-            if(neighbour[i] != -1) {
-                count++;
-            }
-        }
-        return count;
+        return g.countNeighbours(index);
     }
 
     /**
      * Gets the edge weight of an edge of the vertex.
      * @param position position of the edge in relation to the vertex
-     * @return weight of the edge
+     * @return weight of the edge, (-1) if not present
      */
     public double getWeight(int position) {
-        return weight[position];
+        return g.getWeight(index, position);
     }
 
     /**
@@ -115,12 +112,12 @@ public class Vertex {
      */
     @Override
     public String toString() {
-        String str = "";
+        StringBuilder str = new StringBuilder();
         for(int i = 0; i < 4; i++) {
-            if(neighbour[i] != -1) {
-                str = str + neighbour[i] + " :" + weight[i] + " ";
+            if(hasNeighbour(i)) {
+                str.append(getNeighbour(i)).append(" :").append(getWeight(i)).append(' ');
             }
         }
-        return str;
+        return str.toString();
     }
 }
@@ -0,0 +1,33 @@
+package com.example.appgraph;
+
+/**
+ * Priority queue of vertices used by the shortest path searches (the lowest key has the highest priority).
+ * Keys are written into a key array shared with the search (e.g. the distance array),
+ * a vertex is pushed again only with a lower key than its current one.
+ */
+interface VertexQueue {
+    /**
+     * Adds a new vertex to the queue or lowers the key of a vertex already in the queue.
+     * @param vertex index of the added (or updated) vertex
+     * @param key new key of the vertex
+     */
+    void push(int vertex, double key);
+
+    /**
+     * Removes a vertex of the highest priority from the queue.
+     * @return the removed vertex
+     */
+    int pop();
+
+    /**
+     * Gets the vertex of the highest priority without removing it from the queue.
+     * @return the vertex of the highest priority
+     */
+    int peek();
+
+    /**
+     * Checks if the queue is empty.
+     * @return true or false
+     */
+    boolean isEmpty();
+}
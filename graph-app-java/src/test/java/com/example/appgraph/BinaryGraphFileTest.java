@@ -0,0 +1,49 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the binary graph file format.
+ */
+class BinaryGraphFileTest {
+    /**
+     * Directory of the written files.
+     */
+    @TempDir
+    File directory;
+
+    /**
+     * Opens a read-only binary file, changes the graph and checks that the file is left unchanged.
+     * @throws IOException in case of a reading or writing error
+     */
+    @Test
+    void readOnlyFileCanBeChanged() throws IOException {
+        Graph generated = new Graph(40, 50, 1, 10);
+        generated.generateGraph(7);
+        File file = new File(directory, "graph" + BinaryGraphFile.EXTENSION);
+        generated.writeBinaryGraph(file);
+        byte [] contents = Files.readAllBytes(file.toPath());
+        assertTrue(file.setReadOnly());
+
+        Graph g = new Graph();
+        g.readBinaryGraph(file);
+        for(int vertex = 0; vertex < g.getGraphSize(); vertex++) {
+            for(int position = 0; position < 4; position++) {
+                assertEquals(generated.getWeight(vertex, position), g.getWeight(vertex, position));
+            }
+        }
+        g.splitGraph(5);
+        assertEquals(5, g.getComponents().getCount());
+        assertTrue(new BinaryGraphFile(file).verify());
+        assertArrayEquals(contents, Files.readAllBytes(file.toPath()));
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.appgraph;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line benchmark of the connected components:
+ * <ul>
+ *     <li>labelling with BFS, sequential union-find and parallel union-find on pools of growing size
+ *     (the labels must match BFS), on a grid before and after splitting it into 4 segments,</li>
+ *     <li>splitting new grids into growing numbers of segments.</li>
+ * </ul>
+ * Usage: ComponentsBenchmark [side length of the grid ...] (default: 2000).
+ * Run after mvn test-compile with: java -cp target/classes:target/test-classes com.example.appgraph.ComponentsBenchmark
+ */
+public class ComponentsBenchmark {
+    /**
+     * Seed of the generated graphs.
+     */
+    private static final long SEED = 2023;
+
+    /**
+     * Runs the benchmark.
+     * @param args side lengths of the tested grids
+     */
+    public static void main(String [] args) {
+        for(int side : PathBenchmark.parseSides(args, 2000)) {
+            Graph g = new Graph(side, side, 1, 10);
+            g.generateGraph(SEED);
+            compareComponents(g);
+            g.splitGraph(4);
+            compareComponents(g);
+            runSplit(side);
+        }
+    }
+
+    /**
+     * Labels the components with BFS, with sequential union-find and with parallel union-find on pools of growing size,
+     * prints the times and the labels differing from BFS.
+     * @param g graph
+     */
+    private static void compareComponents(Graph g) {
+        Connectivity connectivity = new Connectivity(g);
+        long begin = System.nanoTime();
+        int [] expected = connectivity.labelComponents(g);
+        long time = System.nanoTime() - begin;
+        System.out.println(g.getRows() + "x" + g.getColumns() + ", connected components");
+        System.out.printf("  %-16s %9.3f ms   last %s%n", "BFS", time / 1e6, connectivity);
+        begin = System.nanoTime();
+        Components components = Components.compute(g);
+        time = System.nanoTime() - begin;
+        System.out.printf("  %-16s %9.3f ms   %s%s%n", "union-find", time / 1e6, components,
+                countMismatches(components, expected));
+        for(int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            begin = System.nanoTime();
+            components = Components.compute(g, pool);
+            time = System.nanoTime() - begin;
+            pool.shutdown();
+            System.out.printf("  %-16s %9.3f ms   %s%s%n", "union-find x" + threads, time / 1e6, components,
+                    countMismatches(components, expected));
+        }
+    }
+
+    /**
+     * Compares component labels with the reference ones.
+     * @param components computed components
+     * @param expected reference label of each vertex
+     * @return empty text if the labels are the same, the number of differing labels otherwise
+     */
+    private static String countMismatches(Components components, int [] expected) {
+        int mismatches = 0;
+        for(int vertex = 0; vertex < expected.length; vertex++) {
+            if(components.getLabel(vertex) != expected[vertex]) {
+                mismatches++;
+            }
+        }
+        return (mismatches == 0) ? "" : "   " + mismatches + " label mismatches";
+    }
+
+    /**
+     * Splits new grids into growing numbers of segments and prints the times and the numbers of segments made.
+     * @param side side length of the grid
+     */
+    private static void runSplit(int side) {
+        System.out.println(side + "x" + side + ", splitting into segments");
+        for(int segments = 10; segments <= side * side / 10; segments *= 10) {
+            Graph g = new Graph(side, side, 1, 10);
+            g.generateGraph(SEED);
+            long begin = System.nanoTime();
+            g.splitGraph(segments);
+            long time = System.nanoTime() - begin;
+            int made = g.getComponents().getCount();
+            System.out.printf("  %-16s %9.3f ms%s%n", segments + " segments", time / 1e6,
+                    (made == segments) ? "" : "   " + made + " segments made");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of the parallel component labelling against the sequential one and the BFS of Connectivity.
+ * The graphs have several hundred thousand vertices, so they are cut into several bands
+ * (with band borders inside rows for the shapes of 1 or 2 columns).
+ */
+class ComponentsTest {
+    /**
+     * Numbers of threads of the pools compared with the sequential labelling.
+     */
+    private static final int [] PARALLELISMS = {1, 2, 3, 7};
+
+    /**
+     * Creates a generated graph, split into segments if requested.
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param segments number of segments, 1 to keep the generated graph
+     * @return graph
+     */
+    private static Graph createGraph(int rows, int columns, int segments) {
+        Graph g = new Graph(rows, columns, 1, 10);
+        g.generateGraph(rows * 31L + columns);
+        if(segments > 1) {
+            g.splitGraph(segments);
+        }
+        return g;
+    }
+
+    /**
+     * Compares the components computed on pools of each size with the sequential labelling
+     * and with the labels, sizes and bounding boxes derived from Connectivity.labelComponents.
+     * @param g graph
+     */
+    private static void checkComponents(Graph g) {
+        int columns = g.getColumns();
+        int [] expectedLabels = new Connectivity(g).labelComponents(g);
+        int count = Arrays.stream(expectedLabels).max().orElse(-1) + 1;
+        int [] expectedSizes = new int [count];
+        int [][] expectedBoxes = new int [count][];
+        for(int vertex = 0; vertex < expectedLabels.length; vertex++) {
+            int component = expectedLabels[vertex];
+            int row = vertex / columns;
+            int column = vertex % columns;
+            expectedSizes[component]++;
+            int [] box = expectedBoxes[component];
+            if(box == null) {
+                expectedBoxes[component] = new int [] {row, column, row, column};
+            } else {
+                box[1] = Math.min(box[1], column);
+                box[2] = Math.max(box[2], row);
+                box[3] = Math.max(box[3], column);
+            }
+        }
+
+        Components sequential = Components.compute(g);
+        checkComponents(sequential, expectedLabels, expectedSizes, expectedBoxes);
+        for(int parallelism : PARALLELISMS) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                checkComponents(Components.compute(g, pool), expectedLabels, expectedSizes, expectedBoxes);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Compares components with the expected labels, sizes and bounding boxes.
+     * @param components components of the graph
+     * @param labels expected component of each vertex
+     * @param sizes expected size of each component
+     * @param boxes expected bounding box of each component
+     */
+    private static void checkComponents(Components components, int [] labels, int [] sizes, int [][] boxes) {
+        assertEquals(sizes.length, components.getCount());
+        for(int vertex = 0; vertex < labels.length; vertex++) {
+            assertEquals(labels[vertex], components.getLabel(vertex));
+        }
+        assertArrayEquals(sizes, components.getSizes());
+        for(int component = 0; component < sizes.length; component++) {
+            assertEquals(sizes[component], components.getSize(component));
+            assertArrayEquals(boxes[component], components.getBoundingBox(component));
+        }
+    }
+
+    /**
+     * Checks generated graphs of each shape.
+     */
+    @Test
+    void generatedGraphs() {
+        checkComponents(createGraph(700, 700, 1));
+        checkComponents(createGraph(1, 400000, 1));
+        checkComponents(createGraph(200001, 2, 1));
+    }
+
+    /**
+     * Checks split graphs, where components cross the borders of the bands.
+     */
+    @Test
+    void splitGraphs() {
+        checkComponents(createGraph(700, 700, 40));
+        checkComponents(createGraph(1, 400000, 60));
+        checkComponents(createGraph(200001, 2, 25));
+        checkComponents(createGraph(613, 811, 500));
+    }
+}
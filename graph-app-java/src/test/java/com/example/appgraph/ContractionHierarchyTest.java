@@ -0,0 +1,122 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of saving and loading contraction hierarchies indexes.
+ */
+class ContractionHierarchyTest {
+    /**
+     * Directory of the written files.
+     */
+    @TempDir
+    File directory;
+
+    /**
+     * Builds the index of a graph and saves it.
+     * @param g graph
+     * @return index file
+     * @throws IOException in case of a writing error
+     */
+    private File saveIndex(Graph g) throws IOException {
+        File file = new File(directory, "graph" + ContractionHierarchy.EXTENSION);
+        ContractionHierarchy.build(g).save(file);
+        return file;
+    }
+
+    /**
+     * Creates the graph of the tests.
+     * @return generated and split graph
+     */
+    private static Graph createGraph() {
+        Graph g = new Graph(30, 40, 1, 10);
+        g.generateGraph(8);
+        g.splitGraph(2);
+        return g;
+    }
+
+    /**
+     * Checks that a loaded index answers queries like the built one.
+     * @throws IOException in case of a reading or writing error
+     */
+    @Test
+    void loadedIndexMatchesBuiltOne() throws IOException {
+        Graph g = createGraph();
+        ContractionHierarchy built = ContractionHierarchy.build(g);
+        ContractionHierarchy loaded = ContractionHierarchy.load(saveIndex(g), g);
+        for(int finish : new int [] {1, 17, 600, 1199}) {
+            int [] expected = built.findPath(0, finish);
+            double distance = built.getDistance();
+            assertArrayEquals(expected, loaded.findPath(0, finish));
+            assertEquals(distance, loaded.getDistance());
+        }
+    }
+
+    /**
+     * Checks that a flipped byte of the arrays is caught by the checksum.
+     * @throws IOException in case of a reading or writing error
+     */
+    @Test
+    void corruptedFileIsRejected() throws IOException {
+        Graph g = createGraph();
+        File file = saveIndex(g);
+        byte [] contents = Files.readAllBytes(file.toPath());
+        contents[contents.length / 2] ^= 1;
+        Files.write(file.toPath(), contents);
+        IOException e = assertThrows(IOException.class, () -> ContractionHierarchy.load(file, g));
+        assertEquals("Checksum mismatch.", e.getMessage());
+    }
+
+    /**
+     * Checks that inconsistent arrays with a matching checksum are rejected while loading
+     * (a rank used twice and an edge range going backwards).
+     * @throws IOException in case of a reading or writing error
+     */
+    @Test
+    void inconsistentArraysAreRejected() throws IOException {
+        Graph g = createGraph();
+        File file = saveIndex(g);
+        int headerSize = 64;
+        int size = g.getGraphSize();
+
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        contents.putInt(headerSize, contents.getInt(headerSize + 4));
+        rewrite(file, contents, headerSize);
+        IOException e = assertThrows(IOException.class, () -> ContractionHierarchy.load(file, g));
+        assertEquals("Incorrect vertex rank.", e.getMessage());
+
+        saveIndex(g);
+        contents = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        int firstEdge = headerSize + size * 4;
+        contents.putInt(firstEdge + 4, contents.getInt(firstEdge + 8) + 1);
+        rewrite(file, contents, headerSize);
+        e = assertThrows(IOException.class, () -> ContractionHierarchy.load(file, g));
+        assertEquals("Incorrect edge range.", e.getMessage());
+    }
+
+    /**
+     * Writes changed file contents with the checksum of the header updated to match them.
+     * @param file index file
+     * @param contents whole file
+     * @param headerSize size of the header in bytes
+     * @throws IOException in case of a writing error
+     */
+    private static void rewrite(File file, ByteBuffer contents, int headerSize) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(contents.array(), headerSize, contents.capacity() - headerSize);
+        contents.putLong(32, crc.getValue());
+        Files.write(file.toPath(), contents.array());
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.appgraph;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line benchmark of generated graphs:
+ * <ul>
+ *     <li>generating a grid from a seed in the calling thread and on pools of growing size
+ *     (the weights must be the same),</li>
+ *     <li>A* queries on a stored and an implicit grid of the same seed, split into segments
+ *     (the distances must be the same), and the memory taken by the changed edges of the implicit one.</li>
+ * </ul>
+ * Usage: GenerateBenchmark [side length of the grid ...] (default: 2000).
+ * Run after mvn test-compile with: java -cp target/classes:target/test-classes com.example.appgraph.GenerateBenchmark
+ */
+public class GenerateBenchmark {
+    /**
+     * Seed of the generated graphs and of the random start and finish vertices.
+     */
+    private static final long SEED = 2023;
+
+    /**
+     * Runs the benchmark.
+     * @param args side lengths of the tested grids
+     */
+    public static void main(String [] args) {
+        for(int side : PathBenchmark.parseSides(args, 2000)) {
+            compareGenerate(side);
+            compareImplicit(side);
+        }
+    }
+
+    /**
+     * Generates a grid from the same seed in the calling thread and on pools of growing size,
+     * prints the times and the weights differing from the 1st grid.
+     * @param side side length of the grid
+     */
+    private static void compareGenerate(int side) {
+        System.out.println(side + "x" + side + ", generating from a seed");
+        Graph expected = new Graph(side, side, 1, 10);
+        long begin = System.nanoTime();
+        expected.generateGraph(SEED, null);
+        long time = System.nanoTime() - begin;
+        System.out.printf("  %-16s %9.3f ms%n", "sequential", time / 1e6);
+        for(int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            Graph g = new Graph(side, side, 1, 10);
+            begin = System.nanoTime();
+            g.generateGraph(SEED, pool);
+            time = System.nanoTime() - begin;
+            pool.shutdown();
+            int mismatches = 0;
+            for(int vertex = 0; vertex < g.getGraphSize(); vertex++) {
+                for(int i = 0; i < 4; i++) {
+                    if(Double.compare(g.getWeight(vertex, i), expected.getWeight(vertex, i)) != 0) {
+                        mismatches++;
+                    }
+                }
+            }
+            System.out.printf("  %-16s %9.3f ms%s%n", "parallel x" + threads, time / 1e6,
+                    (mismatches == 0) ? "" : "   " + mismatches + " weight mismatches");
+        }
+    }
+
+    /**
+     * Splits a stored and an implicit grid of the same seed into segments, runs the same A* queries on both
+     * and prints the times and the memory taken by the changed edges of the implicit grid.
+     * @param side side length of the grid
+     */
+    private static void compareImplicit(int side) {
+        int queries = 20;
+        int segments = 100;
+        System.out.println(side + "x" + side + ", stored and implicit graph, split into " + segments + " segments, "
+                + queries + " A* queries");
+        Graph stored = new Graph(side, side, 1, 10);
+        stored.generateGraph(SEED);
+        stored.splitGraph(segments);
+        Graph implicit = new Graph(side, side, 1, 10, SEED);
+        implicit.splitGraph(segments);
+        double [] expected = new double [queries];
+        double [] distances = new double [queries];
+        long storedTime = PathBenchmark.runQueries(stored, Path.QueueType.AUTO, queries, new Random(SEED), true, expected);
+        long implicitTime = PathBenchmark.runQueries(implicit, Path.QueueType.AUTO, queries, new Random(SEED), true, distances);
+        int mismatches = 0;
+        for(int i = 0; i < queries; i++) {
+            if(Double.compare(distances[i], expected[i]) != 0) {
+                mismatches++;
+            }
+        }
+        ImplicitEdgeStorage edges = (ImplicitEdgeStorage) implicit.getEdgeStorage();
+        System.out.printf("  stored %9.3f ms/query   implicit %9.3f ms/query, %d changed edges in %.1f kB%s%n",
+                storedTime / 1e6 / queries, implicitTime / 1e6 / queries, edges.getChangedCount(),
+                edges.getBytes() / 1e3, (mismatches == 0) ? "" : "   " + mismatches + " distance mismatches");
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of graph generation from a seed, stored or implicit.
+ */
+class GraphTest {
+    /**
+     * Numbers of threads of the pools generating the graphs, 0 for the calling thread.
+     */
+    private static final int [] PARALLELISMS = {0, 1, 3, 7};
+
+    /**
+     * Checks that 2 graphs have the same edges, with bit-identical weights.
+     * @param expected graph to compare with
+     * @param actual graph compared
+     */
+    private static void assertSameGraph(Graph expected, Graph actual) {
+        assertEquals(expected.getGraphSize(), actual.getGraphSize());
+        for(int vertex = 0; vertex < expected.getGraphSize(); vertex++) {
+            for(int position = 0; position < 4; position++) {
+                assertEquals(expected.hasNeighbour(vertex, position), actual.hasNeighbour(vertex, position));
+                assertEquals(Double.doubleToLongBits(expected.getWeight(vertex, position)),
+                        Double.doubleToLongBits(actual.getWeight(vertex, position)));
+            }
+        }
+    }
+
+    /**
+     * Generates a graph from a seed with a pool of a given size.
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param seed seed of the graph
+     * @param parallelism number of threads of the pool, 0 for the calling thread
+     * @return graph
+     */
+    private static Graph generate(int rows, int columns, long seed, int parallelism) {
+        Graph g = new Graph(rows, columns, 1, 10);
+        if(parallelism == 0) {
+            g.generateGraph(seed, null);
+            return g;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            g.generateGraph(seed, pool);
+        } finally {
+            pool.shutdown();
+        }
+        return g;
+    }
+
+    /**
+     * Checks that a graph generated from a seed is the same whatever the number of threads,
+     * also for shapes with fewer rows than blocks, and that it is split the same way afterwards.
+     */
+    @Test
+    void generationIsIndependentOfThreads() {
+        int [][] shapes = {{300, 400}, {1, 1000}, {1000, 1}, {5, 333}};
+        for(int [] shape : shapes) {
+            Graph expected = generate(shape[0], shape[1], 42, PARALLELISMS[0]);
+            for(int parallelism : PARALLELISMS) {
+                Graph g = generate(shape[0], shape[1], 42, parallelism);
+                assertSameGraph(expected, g);
+                g.splitGraph(4);
+                assertEquals(4, g.getComponents().getCount());
+                Graph split = generate(shape[0], shape[1], 42, PARALLELISMS[0]);
+                split.splitGraph(4);
+                assertSameGraph(split, g);
+            }
+        }
+    }
+
+    /**
+     * Checks that an implicit graph is the same as the stored graph generated from its seed,
+     * before and after both are split.
+     */
+    @Test
+    void implicitGraphMatchesGeneratedOne() {
+        int [][] shapes = {{300, 400}, {1, 1000}, {1000, 1}};
+        double [][] ranges = {{1, 10}, {0.5, 3.25}};
+        for(int [] shape : shapes) {
+            for(double [] range : ranges) {
+                Graph implicit = new Graph(shape[0], shape[1], range[0], range[1], 99);
+                Graph stored = new Graph(shape[0], shape[1], range[0], range[1]);
+                stored.generateGraph(99);
+                assertTrue(implicit.isImplicit());
+                assertSameGraph(stored, implicit);
+                implicit.splitGraph(6);
+                stored.splitGraph(6);
+                assertSameGraph(stored, implicit);
+            }
+        }
+    }
+}
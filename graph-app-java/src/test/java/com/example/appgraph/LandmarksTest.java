@@ -0,0 +1,22 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the landmark index.
+ */
+class LandmarksTest {
+    /**
+     * Checks that too many landmarks for a large graph are rejected before the distance array is allocated
+     * (the implicit graph of 200M vertices takes almost no memory).
+     */
+    @Test
+    void tooManyLandmarksAreRejected() {
+        Graph g = new Graph(10000, 20000, 1, 10, 1);
+        assertEquals(10, Landmarks.getMaxCount(g));
+        assertThrows(IllegalArgumentException.class, () -> Landmarks.build(g, Landmarks.DEFAULT_COUNT));
+    }
+}
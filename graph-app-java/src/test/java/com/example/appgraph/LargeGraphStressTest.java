@@ -0,0 +1,106 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test of the large-graph mode: generates, splits and queries a grid of 100M vertices.
+ * Skipped unless run with -Dstress=true. Memory budget:
+ * about 1.6 GB of direct memory for the edges (16.25 bytes per vertex),
+ * 0.4 GB of heap for the component labels kept by the graph (4 bytes per vertex),
+ * 0.8 GB for the split and then the BFS arrays (8 bytes per vertex, garbage before the path query)
+ * and 2.4 GB for the PathEngine of the shortest path query (24 bytes per vertex):
+ * mvn test -Dstress=true -DargLine="-Xmx3200m -XX:MaxDirectMemorySize=2g"
+ */
+@Tag("stress")
+@EnabledIfSystemProperty(named = "stress", matches = "true")
+class LargeGraphStressTest {
+    /**
+     * Number of rows and columns of the grid.
+     */
+    private static final int SIDE = 10000;
+
+    /**
+     * Number of segments the grid is split into.
+     */
+    private static final int SEGMENTS = 4;
+
+    /**
+     * Seed of the grid.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Number of BFS hops between the start and finish vertex of the shortest path query.
+     */
+    private static final int QUERY_HOPS = 2000;
+
+    /**
+     * Generates a 100M-vertex grid off the heap, splits it into segments, checks connectivity queries
+     * against the component labels and finds a shortest path within a segment.
+     */
+    @Test
+    void generateSplitAndQuery() {
+        Graph g = new Graph(SIDE, SIDE, 1, 10);
+        assertTrue(g.isLarge());
+        g.generateGraph(SEED);
+        assertEquals(1, g.getComponents().getCount());
+
+        g.splitGraph(SEGMENTS);
+        Components components = g.getComponents();
+        assertEquals(SEGMENTS, components.getCount());
+
+        // a vertex of each segment: the lowest one, segments are numbered in the order of their lowest vertices
+        int [] first = new int [SEGMENTS];
+        int found = 0;
+        for(int vertex = 0; found < SEGMENTS; vertex++) {
+            if(components.getLabel(vertex) == found) {
+                first[found++] = vertex;
+            }
+        }
+        int finish = checkConnectivity(g, components, first);
+
+        // the BFS arrays are garbage by now, the engine takes 36 bytes per vertex
+        PathEngine engine = new PathEngine(g);
+        int [] path = engine.findPathArray(first[0], finish);
+        assertNotNull(path);
+        assertEquals(finish, path[0]);
+        assertEquals(first[0], path[path.length - 1]);
+        assertTrue(path.length > QUERY_HOPS);
+        double length = 0;
+        for(int i = 0; i < path.length - 1; i++) {
+            int position = 0;
+            while(position < 4 && g.getNeighbour(path[i], position) != path[i + 1]) {
+                position++;
+            }
+            assertTrue(position < 4);
+            length += g.getWeight(path[i], position);
+        }
+        assertEquals(length, engine.getDistance(finish), 1e-6);
+    }
+
+    /**
+     * Checks BFS connectivity queries against the component labels.
+     * @param g graph
+     * @param components components of the graph
+     * @param first lowest vertex of each segment
+     * @return vertex of the 1st segment QUERY_HOPS hops from its lowest vertex (or the farthest one)
+     */
+    private static int checkConnectivity(Graph g, Components components, int [] first) {
+        Connectivity connectivity = new Connectivity(g);
+        assertTrue(connectivity.isConnected(g, first[1], first[1]));
+        assertFalse(connectivity.isConnected(g, first[0], first[1]));
+        int last = g.getGraphSize() - 1;
+        assertEquals(components.sameComponent(0, last), connectivity.isConnected(g, 0, last));
+        assertEquals(components.getSize(0), connectivity.findLayers(g, first[0]));
+        assertNotEquals(-1, connectivity.getHops(first[0]));
+        return connectivity.getLayer(Math.min(QUERY_HOPS, connectivity.getLayerCount() - 1))[0];
+    }
+}
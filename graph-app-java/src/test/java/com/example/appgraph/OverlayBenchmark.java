@@ -0,0 +1,82 @@
+package com.example.appgraph;
+
+import java.util.Random;
+
+/**
+ * Command line benchmark of the overlay index: queries against the Dijkstry algorithm
+ * before and after changing random weights, and the time of recustomizing the affected cells.
+ * Usage: OverlayBenchmark [side length of the grid ...] (default: 300, full customization is slow on big grids).
+ * Run after mvn test-compile with: java -cp target/classes:target/test-classes com.example.appgraph.OverlayBenchmark
+ */
+public class OverlayBenchmark {
+    /**
+     * Seed of the generated graphs and of the random start and finish vertices.
+     */
+    private static final long SEED = 2023;
+
+    /**
+     * Runs the benchmark.
+     * @param args side lengths of the tested grids
+     */
+    public static void main(String [] args) {
+        for(int side : PathBenchmark.parseSides(args, 300)) {
+            Graph g = new Graph(side, side, 1, 10);
+            g.generateGraph(SEED);
+            runOverlay(g);
+        }
+    }
+
+    /**
+     * Customizes an overlay index, compares its queries with the Dijkstry algorithm, then changes random weights
+     * and prints the time of recustomizing the affected cells.
+     * @param g graph
+     */
+    private static void runOverlay(Graph g) {
+        int queries = 100;
+        int changes = 10;
+        System.out.println(g.getRows() + "x" + g.getColumns() + ", overlay index, " + queries + " queries");
+        Overlay overlay = new Overlay(g);
+        overlay.customize();
+        System.out.println("  " + overlay);
+        Random random = new Random(SEED);
+        for(int round = 0; round < 2; round++) {
+            long dijkstryTime = 0;
+            long overlayTime = 0;
+            long dijkstrySettled = 0;
+            long overlaySettled = 0;
+            int mismatches = 0;
+            for(int i = 0; i < queries; i++) {
+                int startVertex = random.nextInt(g.getGraphSize());
+                int finishVertex = random.nextInt(g.getGraphSize());
+                Path path = new Path(g);
+                long begin = System.nanoTime();
+                path.findPath(g, startVertex, finishVertex);
+                dijkstryTime += System.nanoTime() - begin;
+                dijkstrySettled += path.getSettledCount();
+                begin = System.nanoTime();
+                overlay.findPath(startVertex, finishVertex);
+                overlayTime += System.nanoTime() - begin;
+                overlaySettled += overlay.getSettledCount();
+                double expected = path.distance[finishVertex];
+                if(startVertex != finishVertex
+                        && Math.abs(overlay.getDistance() - expected) > 1e-9 * Math.max(1, expected)) {
+                    mismatches++;
+                }
+            }
+            System.out.printf("    Dijkstry %9.3f ms/query %9d settled   overlay %9.3f ms/query %9d settled%s%n",
+                    dijkstryTime / 1e6 / queries, dijkstrySettled / queries,
+                    overlayTime / 1e6 / queries, overlaySettled / queries,
+                    (mismatches == 0) ? "" : "   " + mismatches + " distance mismatches");
+            if(round == 0) {
+                for(int i = 0; i < changes; i++) {
+                    int vertex = random.nextInt(g.getGraphSize());
+                    int position = (g.getNeighbour(vertex, Vertex.RIGHT) != -1) ? Vertex.RIGHT : Vertex.LEFT;
+                    overlay.updateWeight(vertex, position, g.getWeightLower() + random.nextDouble()
+                            * (g.getWeightUpper() - g.getWeightLower()));
+                }
+                overlay.customize();
+                System.out.println("  after changing " + changes + " weights: " + overlay);
+            }
+        }
+    }
+}
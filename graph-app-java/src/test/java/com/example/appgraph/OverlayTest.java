@@ -0,0 +1,37 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the multi-level overlay index.
+ */
+class OverlayTest {
+    /**
+     * Follows the marked cells through the 1st customization and a weight update.
+     */
+    @Test
+    void customizationRecomputesMarkedCells() {
+        Graph g = new Graph(40, 40, 1, 10);
+        g.generateGraph(13);
+        // level 1: 5 x 5 tiles of 8 x 8, level 2: 2 x 2 cells of 32 x 32
+        Overlay overlay = new Overlay(g, 8, 2);
+        assertFalse(overlay.isCustomized());
+        assertEquals(29, overlay.customize());
+        assertTrue(overlay.isCustomized());
+
+        // the edge between vertices 0 and 1 lies in the 1st cell of both levels
+        overlay.updateWeight(0, Vertex.RIGHT, 20);
+        assertFalse(overlay.isCustomized());
+        assertEquals(2, overlay.customize());
+        assertTrue(overlay.isCustomized());
+
+        PathEngine engine = new PathEngine(g);
+        engine.findPathArray(0, 1599);
+        overlay.findPath(0, 1599);
+        assertEquals(engine.getDistance(1599), overlay.getDistance(), 1e-9);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of batches of shortest path queries.
+ */
+class PathBatchTest {
+    /**
+     * Compares a distance matrix with the distances of single queries.
+     */
+    @Test
+    void distanceMatrixMatchesSingleQueries() {
+        Graph g = new Graph(30, 40, 1, 10);
+        g.generateGraph(3);
+        g.splitGraph(2);
+        int [] starts = {0, 17, 599, 1199};
+        int [] finishes = {5, 600, 1000, 0, 1199};
+        double [][] matrix = new PathBatch(g).findDistanceMatrix(starts, finishes);
+        PathEngine engine = new PathEngine(g);
+        for(int i = 0; i < starts.length; i++) {
+            for(int j = 0; j < finishes.length; j++) {
+                engine.findPaths(starts[i], new int [] {finishes[j]});
+                assertEquals(engine.getDistance(finishes[j]), matrix[i][j], 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Checks that the diagonal of a batch (start vertex = finish vertex) has distance 0 and the path [start].
+     */
+    @Test
+    void diagonalIsSingleton() {
+        Graph g = new Graph(30, 40, 1, 10);
+        g.generateGraph(3);
+        int [] vertices = {0, 17, 599, 1199};
+        PathBatch.Result result = new PathBatch(g).findPaths(vertices, vertices, true);
+        for(int i = 0; i < vertices.length; i++) {
+            assertEquals(0.0, result.getDistance(i));
+            assertArrayEquals(new int [] {vertices[i]}, result.getPath(i));
+        }
+    }
+
+    /**
+     * Checks that a matrix of more than MAX_QUERIES entries is rejected before anything is allocated for it.
+     */
+    @Test
+    void tooLargeMatrixIsRejected() {
+        int [] vertices = new int [50000];
+        assertThrows(IllegalArgumentException.class, () -> new PathBatch(new Graph(10, 10, 1, 10))
+                .findDistanceMatrix(vertices, vertices));
+    }
+}
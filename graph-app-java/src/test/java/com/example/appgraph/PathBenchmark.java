@@ -0,0 +1,233 @@
+package com.example.appgraph;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Command line benchmark of the shortest path searches:
+ * <ul>
+ *     <li>Dijkstry and A* with every priority queue type, on random grids of every size and 2 weight ranges,</li>
+ *     <li>full shortest path trees with the Dijkstry algorithm and with delta-stepping, on the largest grid,</li>
+ *     <li>a batch of queries sharing start vertices, on the largest grid,</li>
+ *     <li>A* with the Manhattan bound and with landmarks, on the largest grid split into 4 segments.</li>
+ * </ul>
+ * Usage: PathBenchmark [side length of the grid ...] (default: 100 300 1000 2000).
+ * Run after mvn test-compile with: java -cp target/classes:target/test-classes com.example.appgraph.PathBenchmark
+ */
+public class PathBenchmark {
+    /**
+     * Seed of the generated graphs and of the random start and finish vertices.
+     */
+    private static final long SEED = 2023;
+
+    /**
+     * Approximate number of vertices settled by the queries of 1 queue type on 1 grid.
+     */
+    private static final long WORK = 20_000_000L;
+
+    /**
+     * Runs the benchmark.
+     * @param args side lengths of the tested grids
+     */
+    public static void main(String [] args) {
+        int [] sides = parseSides(args, 100, 300, 1000, 2000);
+        double [][] ranges = {{1, 10}, {0.01, 100}};
+        for(int side : sides) {
+            for(double [] range : ranges) {
+                Graph g = new Graph(side, side, range[0], range[1]);
+                g.generateGraph(SEED);
+                compareQueues(g);
+            }
+        }
+        Graph g = new Graph(sides[sides.length - 1], sides[sides.length - 1], 1, 10);
+        g.generateGraph(SEED);
+        compareTrees(g);
+        runBatch(g);
+        g.splitGraph(4);
+        compareLandmarks(g);
+    }
+
+    /**
+     * Reads the side lengths of the grids from the arguments.
+     * @param args side lengths of the grids, none for the default ones
+     * @param defaults default side lengths
+     * @return side lengths
+     */
+    static int [] parseSides(String [] args, int ... defaults) {
+        if(args.length == 0) {
+            return defaults;
+        }
+        int [] sides = new int [args.length];
+        for(int i = 0; i < args.length; i++) {
+            sides[i] = Integer.parseInt(args[i]);
+        }
+        return sides;
+    }
+
+    /**
+     * Runs the same random queries with A* guided by the Manhattan bound and by landmarks,
+     * prints the preprocessing time, memory and the settled vertices per query.
+     * @param g graph
+     */
+    private static void compareLandmarks(Graph g) {
+        int queries = 50;
+        System.out.println(g.getRows() + "x" + g.getColumns() + ", split into 4 segments, A* with landmarks, "
+                + queries + " queries");
+        for(int count = 4; count <= Landmarks.DEFAULT_COUNT; count *= 2) {
+            Landmarks landmarks = Landmarks.build(g, count);
+            System.out.println("  " + landmarks);
+            Random random = new Random(SEED);
+            long manhattanTime = 0;
+            long landmarkTime = 0;
+            long manhattanSettled = 0;
+            long landmarkSettled = 0;
+            int mismatches = 0;
+            for(int i = 0; i < queries; i++) {
+                int startVertex = random.nextInt(g.getGraphSize());
+                int finishVertex = random.nextInt(g.getGraphSize());
+                Path manhattan = new Path(g);
+                long begin = System.nanoTime();
+                manhattan.findPathAStar(g, startVertex, finishVertex);
+                manhattanTime += System.nanoTime() - begin;
+                manhattanSettled += manhattan.getSettledCount();
+                Path alt = new Path(g);
+                begin = System.nanoTime();
+                alt.findPathAStar(g, startVertex, finishVertex, landmarks);
+                landmarkTime += System.nanoTime() - begin;
+                landmarkSettled += alt.getSettledCount();
+                double expected = manhattan.distance[finishVertex];
+                if(Math.abs(alt.distance[finishVertex] - expected) > 1e-9 * Math.max(1, expected)) {
+                    mismatches++;
+                }
+            }
+            System.out.printf("    Manhattan %9.3f ms/query %9d settled   landmarks %9.3f ms/query %9d settled%s%n",
+                    manhattanTime / 1e6 / queries, manhattanSettled / queries,
+                    landmarkTime / 1e6 / queries, landmarkSettled / queries,
+                    (mismatches == 0) ? "" : "   " + mismatches + " distance mismatches");
+        }
+    }
+
+    /**
+     * Answers a batch of random queries sharing a smaller number of start vertices and prints the throughput.
+     * @param g graph
+     */
+    private static void runBatch(Graph g) {
+        int queries = 1000;
+        Random random = new Random(SEED);
+        int [] sources = random.ints(queries / 20, 0, g.getGraphSize()).toArray();
+        int [] startVertices = new int [queries];
+        int [] finishVertices = new int [queries];
+        for(int i = 0; i < queries; i++) {
+            startVertices[i] = sources[random.nextInt(sources.length)];
+            finishVertices[i] = random.nextInt(g.getGraphSize());
+        }
+        System.out.println(g.getRows() + "x" + g.getColumns() + ", batch of " + queries + " queries from "
+                + sources.length + " start vertices");
+        System.out.println("  " + new PathBatch(g).findPaths(startVertices, finishVertices, true));
+    }
+
+    /**
+     * Computes the same shortest path trees with the Dijkstry algorithm and with delta-stepping
+     * on pools of growing size, prints the times.
+     * @param g graph
+     */
+    private static void compareTrees(Graph g) {
+        int queries = 3;
+        System.out.println(g.getRows() + "x" + g.getColumns() + ", full shortest path trees, " + queries + " sources");
+        int [] sources = new Random(SEED).ints(queries, 0, g.getGraphSize()).toArray();
+        double [][] expected = new double [queries][];
+        long time = 0;
+        for(int i = 0; i < queries; i++) {
+            Path path = new Path(g);
+            long begin = System.nanoTime();
+            // without a finish vertex the full Dijkstry search runs
+            path.findPath(g, sources[i], sources[i]);
+            time += System.nanoTime() - begin;
+            expected[i] = path.distance;
+        }
+        System.out.printf("  %-16s %9.3f ms/tree%n", "Dijkstry", time / 1e6 / queries);
+        for(int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            int mismatches = 0;
+            time = 0;
+            for(int i = 0; i < queries; i++) {
+                Path path = new Path(g);
+                long begin = System.nanoTime();
+                path.findTree(g, sources[i], pool);
+                time += System.nanoTime() - begin;
+                for(int j = 0; j < g.getGraphSize(); j++) {
+                    if(path.distance[j] != expected[i][j]) {
+                        mismatches++;
+                    }
+                }
+            }
+            pool.shutdown();
+            System.out.printf("  %-16s %9.3f ms/tree%s%n", "delta-stepping x" + threads, time / 1e6 / queries,
+                    (mismatches == 0) ? "" : "   " + mismatches + " distance mismatches");
+        }
+    }
+
+    /**
+     * Runs the same Dijkstry and A* queries with every queue type and prints the times.
+     * @param g graph
+     */
+    private static void compareQueues(Graph g) {
+        int queries = (int) Math.max(3, Math.min(1000, WORK / g.getGraphSize()));
+        System.out.println(g.getRows() + "x" + g.getColumns() + ", weights " + g.getWeightLower() + " - "
+                + g.getWeightUpper() + ", " + queries + " queries, AUTO: " + new Path(g).getQueueType(g));
+        double [] expected = null;
+        for(Path.QueueType type : Path.QueueType.values()) {
+            if(type == Path.QueueType.AUTO) {
+                continue;
+            }
+            double [] distances = new double [queries];
+            // warm-up
+            runQueries(g, type, Math.max(1, queries / 10), new Random(SEED), false, new double [queries]);
+            long dijkstryTime = runQueries(g, type, queries, new Random(SEED), false, distances);
+            double [] aStarDistances = new double [queries];
+            long aStarTime = runQueries(g, type, queries, new Random(SEED), true, aStarDistances);
+            if(expected == null) {
+                expected = distances;
+            }
+            int mismatches = 0;
+            for(int i = 0; i < queries; i++) {
+                if(Math.abs(distances[i] - expected[i]) > 1e-9 * Math.max(1, expected[i])
+                        || Math.abs(aStarDistances[i] - expected[i]) > 1e-9 * Math.max(1, expected[i])) {
+                    mismatches++;
+                }
+            }
+            System.out.printf("  %-16s Dijkstry %9.3f ms/query   A* %9.3f ms/query%s%n", new Path(g, type).getQueueType(g),
+                    dijkstryTime / 1e6 / queries, aStarTime / 1e6 / queries,
+                    (mismatches == 0) ? "" : "   " + mismatches + " distance mismatches");
+        }
+    }
+
+    /**
+     * Runs random queries with 1 queue type.
+     * @param g graph
+     * @param type type of the priority queue
+     * @param queries number of queries
+     * @param random source of the start and finish vertices
+     * @param aStar true for A* searches, false for full Dijkstry searches
+     * @param distances array for the found distances (infinity if the path doesn't exist)
+     * @return total time in nanoseconds
+     */
+    static long runQueries(Graph g, Path.QueueType type, int queries, Random random, boolean aStar,
+                                   double [] distances) {
+        long time = 0;
+        for(int i = 0; i < queries; i++) {
+            int startVertex = random.nextInt(g.getGraphSize());
+            int finishVertex = random.nextInt(g.getGraphSize());
+            Path path = new Path(g, type);
+            long begin = System.nanoTime();
+            if(aStar) {
+                path.findPathAStar(g, startVertex, finishVertex);
+            } else {
+                path.findPath(g, startVertex, finishVertex);
+            }
+            time += System.nanoTime() - begin;
+            distances[i] = path.distance[finishVertex];
+        }
+        return time;
+    }
+}
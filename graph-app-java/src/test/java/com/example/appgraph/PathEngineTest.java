@@ -0,0 +1,86 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests of the reusable path engine against the Dijkstry algorithm of Path.
+ */
+class PathEngineTest {
+    /**
+     * Calculates the length of a path.
+     * @param g graph
+     * @param path vertices of the path
+     * @return sum of the weights of the edges of the path
+     */
+    private static double getLength(Graph g, int [] path) {
+        double length = 0;
+        for(int i = 0; i < path.length - 1; i++) {
+            for(int position = 0; position < 4; position++) {
+                if(g.getNeighbour(path[i], position) == path[i + 1]) {
+                    length += g.getWeight(path[i], position);
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Runs many queries on 1 engine over a split graph, so that later queries reuse the arrays of earlier ones,
+     * and compares their lengths with the paths found by Path (a new one per query, its arrays aren't reset).
+     */
+    @Test
+    void queriesMatchDijkstry() {
+        Graph g = new Graph(60, 70, 1, 10);
+        g.generateGraph(11);
+        g.splitGraph(3);
+        PathEngine engine = new PathEngine(g);
+        Random random = new Random(5);
+        for(int query = 0; query < 200; query++) {
+            int start = random.nextInt(g.getGraphSize());
+            int finish = random.nextInt(g.getGraphSize());
+            if(start == finish) {
+                // Path.findPath has no path from a vertex to itself, covered by pathToItselfIsSingleton
+                continue;
+            }
+            ArrayList<Integer> expected = new Path(g).findPath(g, start, finish);
+            int [] path = engine.findPathArray(start, finish);
+            if(expected == null) {
+                assertNull(path);
+            } else {
+                int [] expectedPath = expected.stream().mapToInt(Integer::intValue).toArray();
+                assertEquals(finish, path[0]);
+                assertEquals(start, path[path.length - 1]);
+                assertEquals(getLength(g, expectedPath), getLength(g, path), 1e-9);
+                assertEquals(getLength(g, path), engine.getDistance(finish), 1e-9);
+            }
+        }
+    }
+
+    /**
+     * Checks that every way of querying the engine gives the singleton path [start] of length 0
+     * when the start vertex is the finish vertex, also between queries of other vertices.
+     */
+    @Test
+    void pathToItselfIsSingleton() {
+        Graph g = new Graph(20, 30, 1, 10);
+        g.generateGraph(4);
+        PathEngine engine = new PathEngine(g);
+        for(int vertex : new int [] {0, 17, 599}) {
+            engine.findPathArray(0, 599);
+            assertArrayEquals(new int [] {vertex}, engine.findPathArray(vertex, vertex));
+            assertEquals(0.0, engine.getDistance(vertex));
+            assertEquals(1, engine.findPath(vertex, vertex).remaining());
+            assertEquals(vertex, engine.findPath(vertex, vertex).get(0));
+            assertEquals(1, engine.findPaths(vertex, new int [] {vertex}));
+            assertEquals(0.0, engine.getDistance(vertex));
+            assertArrayEquals(new int [] {vertex}, engine.getPathArray(vertex));
+        }
+    }
+}
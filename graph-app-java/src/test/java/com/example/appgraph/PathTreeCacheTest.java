@@ -0,0 +1,36 @@
+package com.example.appgraph;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of the cache of shortest path trees.
+ */
+class PathTreeCacheTest {
+    /**
+     * Answers the same queries with trees cached within the budget and with a budget too small for 1 tree,
+     * where the graph's PathEngine is used and nothing is cached
+     * (also for the path [0] from the start vertex to itself).
+     */
+    @Test
+    void smallBudgetFallsBackToPathEngine() {
+        Graph g = new Graph(50, 50, 1, 10);
+        g.generateGraph(9);
+        PathTreeCache cached = new PathTreeCache(PathTreeCache.DEFAULT_BUDGET);
+        PathTreeCache uncached = new PathTreeCache(12L * g.getGraphSize() - 1);
+        int [] finishes = {0, 1, 1234, 2499};
+        for(int finish : finishes) {
+            int [] treePath = cached.findPath(g, 0, finish);
+            int [] enginePath = uncached.findPath(g, 0, finish);
+            assertEquals(cached.getTree(g, 0).getDistance(finish), g.getPathEngine().getDistance(finish), 1e-9);
+            assertEquals(treePath[0], enginePath[0]);
+            assertEquals(treePath[treePath.length - 1], enginePath[enginePath.length - 1]);
+        }
+        // 1 tree built, then reused by the other queries and by getTree
+        assertEquals(1, cached.getMisses());
+        assertEquals(2 * finishes.length - 1, cached.getHits());
+        assertEquals(finishes.length, uncached.getMisses());
+        assertEquals(0, uncached.getBytes());
+    }
+}